@@ -0,0 +1,77 @@
+package org.pungrammer.arbitrarydiceinstructor.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.config.EnumerationMode;
+
+import java.util.concurrent.TimeUnit;
+
+// Whole calc searches of the beam enumeration next to the exhaustive bounded one, for large dice and roll counts.
+// The beam width is a state of its own, so the bounded search is not repeated for every width.
+// beamGap shows how much worse the options of the beam are for the same settings.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeamSearchBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Dice {
+        @Param({"4,6,8,10,12,20,100", "3,5,7,11,13,17,19,23,29,31,37,41,43,47,53,59"})
+        public String dice;
+
+        @Param({"5", "6", "8"})
+        public int maxRollCount;
+
+        @Param({"99991", "1000000", "9999991"})
+        public int wantedDie;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Beam {
+        @Param({"16", "64", "256"})
+        public int beamWidth;
+
+        private DiceSearch search;
+
+        // Without an index the beam is not compared to the best option while it is measured
+        @Setup
+        public void setUp(final Dice dice) {
+            Config config = BenchmarkDice.createConfig(dice.dice, dice.maxRollCount, EnumerationMode.BEAM);
+            config.setBeamWidth(beamWidth);
+            search = new DiceSearch(config, new ProductIndex(config, 0));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Bounded {
+        private DiceSearch search;
+
+        @Setup
+        public void setUp(final Dice dice) {
+            Config config = BenchmarkDice.createConfig(dice.dice, dice.maxRollCount, EnumerationMode.BOUNDED);
+            search = new DiceSearch(config, new ProductIndex(config, 0));
+        }
+    }
+
+    @Benchmark
+    public SearchResult beam(final Dice dice, final Beam beam) {
+        return beam.search.search(dice.wantedDie);
+    }
+
+    @Benchmark
+    public SearchResult bounded(final Dice dice, final Bounded bounded) {
+        return bounded.search.search(dice.wantedDie);
+    }
+}
@@ -0,0 +1,67 @@
+package org.pungrammer.arbitrarydiceinstructor.search;
+
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.config.EnumerationMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Shared setup of the benchmarks
+final class BenchmarkDice {
+
+    private BenchmarkDice() {
+    }
+
+    // Single threaded, so the numbers only depend on the search itself
+    static Config createConfig(final String dice, final int maxRollCount, final EnumerationMode mode) {
+        Config config = new Config();
+        config.setAvailableDice(Arrays.stream(dice.split(",")).map(Integer::valueOf).collect(Collectors.toList()));
+        config.setMaxRollCount(maxRollCount);
+        config.setEnumerationMode(mode);
+        config.setThreadCount(1);
+        return config;
+    }
+
+    static int[] sides(final Config config) {
+        return config.getAvailableDice().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // All multisets of at least two dice, in the index layout of the search
+    static List<int[]> multisets(final int sideCount, final int maxRollCount) {
+        List<int[]> multisets = new ArrayList<>();
+        int[] dieIndizes = new int[maxRollCount];
+        Arrays.fill(dieIndizes, -1);
+        addMultisets(multisets, sideCount, dieIndizes, maxRollCount - 1, 0);
+        return multisets;
+    }
+
+    static long product(final int[] sides, final int[] dieIndizes) {
+        long product = 1;
+        for (int dieIndex : dieIndizes) {
+            if (dieIndex >= 0) {
+                product *= sides[dieIndex];
+            }
+        }
+        return product;
+    }
+
+    static int rollCount(final int[] dieIndizes) {
+        return (int) Arrays.stream(dieIndizes).filter(dieIndex -> dieIndex >= 0).count();
+    }
+
+    private static void addMultisets(final List<int[]> multisets, final int sideCount, final int[] dieIndizes,
+                                     final int position, final int lowestIndex) {
+        for (int i = lowestIndex; i < sideCount; i++) {
+            dieIndizes[position] = i;
+            if (position < dieIndizes.length - 1) {
+                multisets.add(dieIndizes.clone());
+            }
+            if (position > 0) {
+                addMultisets(multisets, sideCount, dieIndizes, position - 1, i);
+            }
+        }
+        dieIndizes[position] = -1;
+    }
+}
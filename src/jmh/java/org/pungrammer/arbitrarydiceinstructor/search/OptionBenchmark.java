@@ -0,0 +1,102 @@
+package org.pungrammer.arbitrarydiceinstructor.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.config.EnumerationMode;
+import org.pungrammer.arbitrarydiceinstructor.option.MultiplyDivideDiscard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The steps done for every combination of dice: checking the compound die, creating the option,
+// picking the best option and printing it. Every operation covers all multisets of the dice.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptionBenchmark {
+
+    @Param({"4,6,8,10,12,20,100", "2,3,5,7", "6", "4,6,8,12,20,30,100"})
+    public String dice;
+
+    @Param({"2", "3", "4", "5", "6"})
+    public int maxRollCount;
+
+    @Param({"7", "13", "97", "12", "360", "5040", "99991", "1000000"})
+    public int wantedDie;
+
+    private int[] sides;
+    private int[][] multisets;
+    private long[] products;
+    private int[] rollCounts;
+    private long[] discardAbove;
+    private List<MultiplyDivideDiscard> options;
+
+    @Setup
+    public void setUp() {
+        Config config = BenchmarkDice.createConfig(dice, maxRollCount, EnumerationMode.MULTISET);
+        sides = BenchmarkDice.sides(config);
+        multisets = BenchmarkDice.multisets(sides.length, maxRollCount).toArray(new int[0][]);
+        products = new long[multisets.length];
+        rollCounts = new int[multisets.length];
+        discardAbove = new long[multisets.length];
+        options = new ArrayList<>();
+        for (int i = 0; i < multisets.length; i++) {
+            products[i] = BenchmarkDice.product(sides, multisets[i]);
+            rollCounts[i] = BenchmarkDice.rollCount(multisets[i]);
+            discardAbove[i] = DiceSearch.discardAbove(wantedDie, products[i], rollCounts[i]);
+            if (discardAbove[i] >= 0) {
+                options.add(DiceSearch.createOption(wantedDie, sides, multisets[i], discardAbove[i]));
+            }
+        }
+    }
+
+    // Which compound dice can simulate the wanted die and what needs to be discarded
+    @Benchmark
+    public void discardAbove(final Blackhole blackhole) {
+        for (int i = 0; i < multisets.length; i++) {
+            blackhole.consume(DiceSearch.discardAbove(wantedDie, products[i], rollCounts[i]));
+        }
+    }
+
+    @Benchmark
+    public void createOption(final Blackhole blackhole) {
+        for (int i = 0; i < multisets.length; i++) {
+            if (discardAbove[i] >= 0) {
+                blackhole.consume(DiceSearch.createOption(wantedDie, sides, multisets[i], discardAbove[i]));
+            }
+        }
+    }
+
+    // Picks the best option the same way every search does
+    @Benchmark
+    public SearchResult findBestOption() {
+        SearchResult result = new SearchResult();
+        result.setWantedDie(wantedDie);
+        for (MultiplyDivideDiscard option : options) {
+            result.offer(option);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public void getPrintableOption(final Blackhole blackhole) {
+        for (MultiplyDivideDiscard option : options) {
+            blackhole.consume(option.getPrintableOption());
+        }
+    }
+}
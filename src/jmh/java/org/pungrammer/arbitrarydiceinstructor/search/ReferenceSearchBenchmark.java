@@ -0,0 +1,50 @@
+package org.pungrammer.arbitrarydiceinstructor.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.config.EnumerationMode;
+
+import java.util.concurrent.TimeUnit;
+
+// The odometer search behind expandDie() and expand(). It visits every permutation and counts up to the
+// compound die for every one of them, so more than 4 dice or large wanted dice take minutes per call.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReferenceSearchBenchmark {
+
+    @Param({"4,6,8,10,12,20,100", "2,3,5,7", "6", "4,6,8,12,20,30,100"})
+    public String dice;
+
+    @Param({"2", "3", "4"})
+    public int maxRollCount;
+
+    @Param({"7", "13", "97", "12", "360"})
+    public int wantedDie;
+
+    private DiceSearch search;
+
+    @Setup
+    public void setUp() {
+        Config config = BenchmarkDice.createConfig(dice, maxRollCount, EnumerationMode.ODOMETER);
+        search = new DiceSearch(config, new ProductIndex(config, 11 * 100_000));
+    }
+
+    @Benchmark
+    public SearchResult search() {
+        return search.search(wantedDie);
+    }
+}
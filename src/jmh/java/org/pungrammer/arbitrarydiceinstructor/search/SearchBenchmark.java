@@ -0,0 +1,53 @@
+package org.pungrammer.arbitrarydiceinstructor.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.config.EnumerationMode;
+
+import java.util.concurrent.TimeUnit;
+
+// Whole calc searches for a grid of dice, roll counts and wanted dice
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"4,6,8,10,12,20,100", "2,3,5,7", "6", "4,6,8,12,20,30,100"})
+    public String dice;
+
+    @Param({"2", "3", "4", "5", "6"})
+    public int maxRollCount;
+
+    // Small primes, highly composite numbers and large dice
+    @Param({"7", "13", "97", "12", "360", "5040", "99991", "1000000"})
+    public int wantedDie;
+
+    @Param({"INDEXED", "BOUNDED", "MULTISET"})
+    public EnumerationMode mode;
+
+    private DiceSearch search;
+
+    @Setup
+    public void setUp() {
+        Config config = BenchmarkDice.createConfig(dice, maxRollCount, mode);
+        search = new DiceSearch(config, new ProductIndex(config, 11 * 100_000));
+    }
+
+    @Benchmark
+    public SearchResult search() {
+        return search.search(wantedDie);
+    }
+}
@@ -0,0 +1,90 @@
+package org.pungrammer.arbitrarydiceinstructor.command;
+
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.config.ConfigSnapshot;
+import org.pungrammer.arbitrarydiceinstructor.search.BeamComparison;
+import org.pungrammer.arbitrarydiceinstructor.search.DiceSearch;
+import org.pungrammer.arbitrarydiceinstructor.search.ProductIndex;
+import org.pungrammer.arbitrarydiceinstructor.stats.Statistics;
+
+// Runs the beam search and the exhaustive bounded search for the same dice and shows how much worse and how much
+// faster the beam is. Only feasible for dice the exhaustive search can still handle.
+public class BeamGapCommand extends Command {
+
+    private final DiceSearch search;
+
+    protected BeamGapCommand(final Config config, final ProductIndex productIndex, final Statistics statistics) {
+        super(config);
+        this.search = new DiceSearch(config, productIndex, statistics);
+    }
+
+    @Override
+    protected void executeCommand(final String commandArgs) {
+        if (commandArgs == null) {
+            throw new IllegalArgumentException("Please specify the dice to compare, e.g. beamGap 2..1000");
+        }
+        int[] wantedDice = DiceInstructionCommand.parseWantedDice(commandArgs);
+        ConfigSnapshot snapshot = config.getSnapshot();
+
+        StringBuilder sb = new StringBuilder();
+        int bestFound = 0;
+        int missed = 0;
+        int compared = 0;
+        double gapSum = 0;
+        double largestGap = 0;
+        int largestGapDie = 0;
+        long beamNanos = 0;
+        long exhaustiveNanos = 0;
+        for (int wantedDie : wantedDice) {
+            BeamComparison comparison = search.compareBeam(snapshot, wantedDie);
+            beamNanos += comparison.getBeamNanos();
+            exhaustiveNanos += comparison.getExhaustiveNanos();
+            if (comparison.getExhaustiveOption() == null) {
+                // Nothing to find for either search
+                continue;
+            }
+            compared++;
+            if (comparison.isBestFound()) {
+                bestFound++;
+                continue;
+            }
+            if (comparison.getBeamOption() == null) {
+                missed++;
+                sb.append(String.format("d%d: beam found nothing, best needs %.3f dice per result%n", wantedDie,
+                        comparison.getExhaustiveOption().getExpectedThrows()));
+                continue;
+            }
+            double gap = comparison.getGap();
+            gapSum += gap;
+            if (gap > largestGap) {
+                largestGap = gap;
+                largestGapDie = wantedDie;
+            }
+            sb.append(String.format("d%d: beam needs %.6f dice per result, best %.6f (+%.6f)%n", wantedDie,
+                    comparison.getBeamOption().getExpectedThrows(),
+                    comparison.getExhaustiveOption().getExpectedThrows(), gap));
+        }
+
+        sb.append(String.format("Beam width %d found the best MultiplyDivideDiscard for %d of %d dice, " +
+                "nothing for %d%n", snapshot.getBeamWidth(), bestFound, compared, missed));
+        if (compared > missed) {
+            sb.append(String.format("Dice per result more than the best: %.6f on average, %.6f at most",
+                    gapSum / (compared - missed), largestGap));
+            sb.append(largestGap > 0 ? String.format(" (d%d)%n", largestGapDie) : String.format("%n"));
+        }
+        sb.append(String.format("Beam search took %dms, exhaustive search %dms on one thread (%.1fx)",
+                beamNanos / 1_000_000, exhaustiveNanos / 1_000_000,
+                beamNanos == 0 ? 0 : ((double) exhaustiveNanos) / beamNanos));
+        out.println(sb.toString());
+    }
+
+    @Override
+    protected void close() {
+        search.close();
+    }
+
+    @Override
+    protected String getCommandWord() {
+        return "beamGap";
+    }
+}
@@ -0,0 +1,30 @@
+package org.pungrammer.arbitrarydiceinstructor.command;
+
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.search.SearchCache;
+
+public class CacheCommand extends Command {
+
+    private final SearchCache cache;
+
+    protected CacheCommand(final Config config, final SearchCache cache) {
+        super(config);
+        this.cache = cache;
+    }
+
+    @Override
+    protected void executeCommand(String commandArgs) {
+        long hits = cache.getHits();
+        long misses = cache.getMisses();
+        double hitRate = hits + misses == 0 ? 0 : ((double) hits) / (hits + misses) * 100;
+        out.printf("Cached results: %d of %d%n" +
+                        "Hits: %d, misses: %d (hit rate: %f%%)%n" +
+                        "Hits updated for added dice: %d%n",
+                cache.size(), cache.getCapacity(), hits, misses, hitRate, cache.getUpdates());
+    }
+
+    @Override
+    protected String getCommandWord() {
+        return "cache";
+    }
+}
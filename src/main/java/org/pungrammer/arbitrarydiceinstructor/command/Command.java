@@ -1,22 +1,54 @@
 package org.pungrammer.arbitrarydiceinstructor.command;
 
 import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.stats.Statistics;
 
-import java.time.Duration;
-import java.time.Instant;
+import java.io.PrintStream;
 
 public abstract class Command {
 
     protected Config config;
+    // Where the command prints to, the console unless the command runs in a server session
+    protected PrintStream out = System.out;
+    // Shared by all commands of a CommandParser
+    private Statistics statistics = new Statistics();
+    // Scripts may leave out the timing line, the latency is recorded in the statistics either way
+    private boolean timingShown = true;
 
     public Command(final Config config) {
         this.config = config;
     }
 
     public void execute(final String commandArgs) {
-        Instant start = Instant.now();
+        long start = System.nanoTime();
         executeCommand(commandArgs);
-        System.out.printf("command took %dms%n", Duration.between(start, Instant.now()).toMillis());
+        long nanos = System.nanoTime() - start;
+        statistics.recordLatency(getCommandWord(), nanos);
+        if (!timingShown) {
+            return;
+        }
+        out.printf("command took %dms%s%n", nanos / 1_000_000, getTimingDetails());
+    }
+
+    void setStatistics(final Statistics statistics) {
+        this.statistics = statistics;
+    }
+
+    void setOutput(final PrintStream out) {
+        this.out = out;
+    }
+
+    void setTimingShown(final boolean timingShown) {
+        this.timingShown = timingShown;
+    }
+
+    // Releases the threads of the command once its CommandParser is closed
+    protected void close() {
+    }
+
+    // Appended to the timing line of this command
+    protected String getTimingDetails() {
+        return "";
     }
 
     protected abstract void executeCommand(final String commandArgs);
@@ -1,20 +1,61 @@
 package org.pungrammer.arbitrarydiceinstructor.command;
 
 import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.format.ResultOutput;
+import org.pungrammer.arbitrarydiceinstructor.search.InFlightSearches;
+import org.pungrammer.arbitrarydiceinstructor.search.ProductIndex;
+import org.pungrammer.arbitrarydiceinstructor.search.SearchCache;
+import org.pungrammer.arbitrarydiceinstructor.search.SolutionTable;
+import org.pungrammer.arbitrarydiceinstructor.stats.Statistics;
 
+import java.io.PrintStream;
 import java.util.HashSet;
 import java.util.Set;
 
-public class CommandParser {
+// Close the parser once it is no longer used, some commands keep threads for their searches.
+public class CommandParser implements AutoCloseable {
 
+    private static final int CACHE_SIZE = 1024;
+    // Answers every die up to d100000 from the index
+    private static final int INDEX_LARGEST_PRODUCT = 11 * 100_000;
 
     private final Set<Command> availableCommands;
 
     public CommandParser(final Config config) {
+        this(config, new SolutionTable(config));
+    }
+
+    public CommandParser(final Config config, final SolutionTable solutionTable) {
+        this(config, solutionTable, new InFlightSearches());
+    }
+
+    // Parsers sharing the in flight searches compute identical calcs running at the same time only once
+    public CommandParser(final Config config, final SolutionTable solutionTable,
+                         final InFlightSearches inFlightSearches) {
+        SearchCache cache = new SearchCache(config, CACHE_SIZE);
+        ProductIndex productIndex = new ProductIndex(config, INDEX_LARGEST_PRODUCT);
+        Statistics statistics = new Statistics();
+        ResultOutput resultOutput = new ResultOutput();
+
         availableCommands = new HashSet<>();
-        availableCommands.add(new SetAvailableDiceCommand(config));
-        availableCommands.add(new DiceInstructionCommand(config));
+        availableCommands.add(new SetAvailableDiceCommand(config, productIndex));
+        availableCommands.add(new DiceInstructionCommand(config, cache, productIndex, solutionTable, statistics,
+                inFlightSearches, resultOutput));
+        availableCommands.add(new CacheCommand(config, cache));
+        availableCommands.add(new ExportCommand(config, productIndex, solutionTable, statistics));
+        availableCommands.add(new VerifyCommand(config, cache, productIndex, statistics));
+        availableCommands.add(new SetEnumerationModeCommand(config));
+        availableCommands.add(new SetBeamWidthCommand(config));
+        availableCommands.add(new BeamGapCommand(config, productIndex, statistics));
+        availableCommands.add(new SetMaxRollCount(config, productIndex));
+        availableCommands.add(new SetThreadCountCommand(config));
+        availableCommands.add(new SetTimeBudgetCommand(config));
+        availableCommands.add(new SetProductCeilingCommand(config));
+        availableCommands.add(new SetFormatCommand(config, resultOutput));
+        availableCommands.add(new FuzzCommand(config));
+        availableCommands.add(new StatsCommand(config, statistics));
         availableCommands.add(new HelpCommand(config));
+        availableCommands.forEach(command -> command.setStatistics(statistics));
     }
 
     public Command parseCommand(final String commandWord) {
@@ -26,4 +67,32 @@ public class CommandParser {
 
         throw new IllegalArgumentException("Unknown command word");
     }
+
+    // Splits a line into the command word and its arguments and executes the command
+    public void execute(final String rawCommand) {
+        String commandWord = rawCommand;
+        String commandArgs = null;
+        if (rawCommand.contains(" ")) {
+            commandWord = rawCommand.substring(0, rawCommand.indexOf(" "));
+            commandArgs = rawCommand.substring(rawCommand.indexOf(" ") + 1);
+        }
+
+        Command command = parseCommand(commandWord);
+        command.execute(commandArgs);
+    }
+
+    // All commands print to this stream from now on
+    public void setOutput(final PrintStream out) {
+        availableCommands.forEach(command -> command.setOutput(out));
+    }
+
+    // Whether every command prints how long it took
+    public void setTimingShown(final boolean timingShown) {
+        availableCommands.forEach(command -> command.setTimingShown(timingShown));
+    }
+
+    @Override
+    public void close() {
+        availableCommands.forEach(Command::close);
+    }
 }
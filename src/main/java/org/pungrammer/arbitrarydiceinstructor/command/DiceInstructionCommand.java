@@ -1,374 +1,412 @@
 package org.pungrammer.arbitrarydiceinstructor.command;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.EqualsAndHashCode;
 import org.pungrammer.arbitrarydiceinstructor.config.Config;
-import org.pungrammer.arbitrarydiceinstructor.dice.DiceRoll;
-import org.pungrammer.arbitrarydiceinstructor.dice.Die;
-
+import org.pungrammer.arbitrarydiceinstructor.config.ConfigSnapshot;
+import org.pungrammer.arbitrarydiceinstructor.config.EnumerationMode;
+import org.pungrammer.arbitrarydiceinstructor.format.OutputFormat;
+import org.pungrammer.arbitrarydiceinstructor.format.ResultOutput;
+import org.pungrammer.arbitrarydiceinstructor.option.BigMultiplyDivideDiscard;
+import org.pungrammer.arbitrarydiceinstructor.option.MultiplyDivideDiscard;
+import org.pungrammer.arbitrarydiceinstructor.option.Option;
+import org.pungrammer.arbitrarydiceinstructor.option.RecyclingDiscard;
+import org.pungrammer.arbitrarydiceinstructor.search.BigDiceSearch;
+import org.pungrammer.arbitrarydiceinstructor.search.DiceSearch;
+import org.pungrammer.arbitrarydiceinstructor.search.InFlightSearches;
+import org.pungrammer.arbitrarydiceinstructor.search.ProductIndex;
+import org.pungrammer.arbitrarydiceinstructor.search.SearchCache;
+import org.pungrammer.arbitrarydiceinstructor.search.SearchProgress;
+import org.pungrammer.arbitrarydiceinstructor.search.SearchResult;
+import org.pungrammer.arbitrarydiceinstructor.search.SolutionTable;
+import org.pungrammer.arbitrarydiceinstructor.search.TopOptions;
+import org.pungrammer.arbitrarydiceinstructor.search.TopResult;
+import org.pungrammer.arbitrarydiceinstructor.stats.Statistics;
+
+import java.math.BigInteger;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class DiceInstructionCommand extends Command {
 
-    @Data
-    @AllArgsConstructor
-    @EqualsAndHashCode
-    private abstract static class Option {
-        // Returns a score.
-        // Positive numbers mean this is better than other.
-        // 0 means they are equal.
-        // Negative numbers mean this is worse the other.
-        protected abstract int isBetterThan(Option other);
-
-        protected abstract String getPrintableOption();
+    // How often a running search reports how far it got
+    private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+    // calc <wantedDie> top <count>
+    private static final Pattern TOP = Pattern.compile("(\\d+)\\s+top\\s+(\\d+)");
+    // Most dice calc and export search at once, a range is expanded into all of its dice before the search
+    static final int MAX_BATCH_SIZE = 1_000_000;
+
+    private final DiceSearch search;
+    private final BigDiceSearch bigSearch;
+    private final SearchCache cache;
+    private final SolutionTable solutionTable;
+    private final InFlightSearches inFlightSearches;
+    private final ResultOutput resultOutput;
+    // Searches run here, so the command can stop them once the time budget is used up
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "calc");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private SearchResult lastResult;
+    // Where the last result came from if it was not searched, null otherwise
+    private String lastResultSource;
+
+    protected DiceInstructionCommand(final Config config, final SearchCache cache, final ProductIndex productIndex,
+                                     final SolutionTable solutionTable, final Statistics statistics,
+                                     final InFlightSearches inFlightSearches, final ResultOutput resultOutput) {
+        super(config);
+        this.search = new DiceSearch(config, productIndex, statistics);
+        this.bigSearch = new BigDiceSearch(config, statistics);
+        this.cache = cache;
+        this.solutionTable = solutionTable;
+        this.inFlightSearches = inFlightSearches;
+        this.resultOutput = resultOutput;
     }
 
-    @Data
-    @AllArgsConstructor
-    @EqualsAndHashCode(callSuper = true)
-    private static class RollMultiple extends Option {
-
-        private DiceRoll roll;
-
-        @Override
-        protected int isBetterThan(Option other) {
-            if (!(other instanceof RollMultiple)) {
-                throw new IllegalArgumentException("Wrong type");
-            }
+    @Override
+    protected String getCommandWord() {
+        return "calc";
+    }
 
-            RollMultiple castedOther = ((RollMultiple) other);
-            if (this.equals(castedOther)) {
-                return 0;
-            }
+    @Override
+    protected void close() {
+        worker.shutdownNow();
+        search.close();
+    }
 
-            int score = 0;
-            if (this.roll.getNumberOfDice() > castedOther.roll.getNumberOfDice()) {
-                score--;
-            } else {
-                score++;
-            }
-            if (this.roll.getDie().getSides() > castedOther.roll.getDie().getSides()) {
-                score--;
-            } else {
-                score++;
-            }
-            return score;
+    @Override
+    protected void executeCommand(final String commandArgs) {
+        lastResult = null;
+        lastResultSource = null;
+        if (commandArgs == null) {
+            throw new IllegalArgumentException("Please specify the desired die.");
         }
-
-        @Override
-        protected String getPrintableOption() {
-            return String.format("Roll %s", roll.toString());
+        if (commandArgs.contains(",") || commandArgs.contains("..")) {
+            executeBatch(parseWantedDice(commandArgs));
+            return;
+        }
+        Matcher top = TOP.matcher(commandArgs.trim());
+        if (top.matches()) {
+            executeTop(Integer.parseInt(top.group(1)), Integer.parseInt(top.group(2)));
+            return;
         }
-    }
-
-    @Data
-    @AllArgsConstructor
-    @EqualsAndHashCode(callSuper = true)
-    private static class Discard extends Option {
-
-        private Die die;
-        private int discardAbove;
 
-        @Override
-        protected int isBetterThan(Option other) {
-            if (!(other instanceof Discard)) {
-                throw new IllegalArgumentException("Wrong type");
+        BigInteger bigWantedDie = new BigInteger(commandArgs.trim());
+        if (bigWantedDie.signum() > 0 && bigWantedDie.bitLength() > 31) {
+            executeBig(bigWantedDie);
+            return;
+        }
+        // Negative dice beyond the int range are too small like any other negative die
+        int wantedDie = bigWantedDie.bitLength() > 31 ? Integer.MIN_VALUE : bigWantedDie.intValueExact();
+        checkWantedDie(wantedDie);
+
+        // The same settings are used for the cache, for sharing the search and for the search itself
+        ConfigSnapshot snapshot = config.getSnapshot();
+        lastResult = solutionTable.lookup(snapshot, wantedDie);
+        lastResultSource = "solution table";
+        if (lastResult == null) {
+            lastResult = cache.get(snapshot, wantedDie);
+            lastResultSource = "cache";
+        }
+        if (lastResult == null) {
+            SearchProgress progress = new SearchProgress();
+            lastResult = runWithinBudget(() -> inFlightSearches.search(snapshot, wantedDie,
+                    () -> search.search(snapshot, wantedDie, progress)), snapshot, progress, true);
+            lastResultSource = null;
+            // Results of stopped searches might be beaten by a search with more time
+            if (lastResult.isExhaustive()) {
+                cache.put(snapshot, wantedDie, lastResult);
             }
+        }
 
-            Discard castedOther = ((Discard) other);
-            if (this.equals(castedOther)) {
-                return 0;
-            }
+        printResult(lastResult);
+    }
 
-            int score = 0;
-            if (this.discardAbove > castedOther.discardAbove) {
-                score--;
-            } else {
-                score++;
-            }
-            if (this.die.getSides() > castedOther.die.getSides()) {
-                score--;
-            } else {
-                score++;
-            }
-            return score;
+    // Dice beyond the int range are searched with arbitrary precision and not cached
+    private void executeBig(final BigInteger wantedDie) {
+        if (resultOutput.getFormat() != OutputFormat.TEXT) {
+            throw new IllegalArgumentException("Dice beyond the int range are only printed as text.");
         }
-
-        @Override
-        protected String getPrintableOption() {
-            return String.format("Roll 1%s and discard any results above %d",
-                    die.toString(), discardAbove);
+        SearchProgress progress = new SearchProgress();
+        BigMultiplyDivideDiscard best = runWithinBudget(() -> bigSearch.search(wantedDie, progress),
+                config.getSnapshot(), progress, true);
+        String budgetNote = progress.isStopped() ? " within the time budget" : "";
+        if (best == null) {
+            out.printf("Unable to find any solutions for your d%s%s%n", wantedDie, budgetNote);
+            return;
+        }
+        if (progress.isStopped()) {
+            out.println("The time budget ran out, these are the best options found so far:");
         }
+        StringBuilder sb = new StringBuilder();
+        appendOption(sb, null, best);
+        out.println(sb.toString());
     }
 
-    @Data
-    @AllArgsConstructor
-    @EqualsAndHashCode(callSuper = true)
-    private static class MultiplyDivideDiscard extends Option {
-        private int divideBy;
-        private int discardAbove;
-        private List<DiceRoll> requiredRolls;
-
-        @Override
-        protected int isBetterThan(Option other) {
-            if (!(other instanceof MultiplyDivideDiscard)) {
-                throw new IllegalArgumentException("Wrong type");
+    // The best options of every type instead of only the best one. Always searched and not cached.
+    private void executeTop(final int wantedDie, final int count) {
+        checkWantedDie(wantedDie);
+        if (count < 1) {
+            throw new IllegalArgumentException("Please show at least the top 1 options.");
+        }
+        SearchProgress progress = new SearchProgress();
+        ConfigSnapshot snapshot = config.getSnapshot();
+        TopResult result = runWithinBudget(() -> search.searchTop(snapshot, wantedDie, count, progress),
+                snapshot, progress, true);
+        if (resultOutput.getFormat() != OutputFormat.TEXT) {
+            // The fastest first like in the text, but only once
+            List<Option> options = new ArrayList<>();
+            Option best = result.getBestOption();
+            if (best != null) {
+                options.add(best);
             }
-
-            MultiplyDivideDiscard castedOther = ((MultiplyDivideDiscard) other);
-            if (this.equals(castedOther)) {
-                return 0;
+            for (TopOptions<? extends Option> top : List.of(result.getExactProducts(), result.getRollMultiples(),
+                    result.getDiscards(), result.getMultiplyDivideDiscards(), result.getRecyclingDiscards())) {
+                top.getOptions().stream().filter(option -> option != best).forEach(options::add);
             }
-
-            return ((int) (this.getScore() - castedOther.getScore()));
+            resultOutput.write(out, wantedDie, result.isExhaustive(), options);
+            resultOutput.flush();
+            return;
         }
-
-        private double getScore() {
-            int rollCount = 0;
-            int simDieSides = 1;
-            for (DiceRoll roll : this.requiredRolls) {
-                rollCount += roll.getNumberOfDice();
-                simDieSides *= roll.getNumberOfDice() * roll.getDie().getSides();
-            }
-
-            double discardRatio = ((double) simDieSides) / (simDieSides - this.discardAbove);
-
-            return simDieSides * rollCount * discardRatio;
+        if (result.isEmpty()) {
+            out.printf("Unable to find any solutions for your d%d%s%n", wantedDie,
+                    result.isExhaustive() ? "" : " within the time budget");
+            return;
         }
 
-        public String getExample() {
-            return "Example: You wanted to get a d7.\n" +
-                    "Your instructions said to roll 1d6 and 1d12.\n" +
-                    "The solution slots are 10 wide and you need to discard all results above 70.\n" +
-                    "Roll the dice. Assume the d6 shows 2 and the d12 shows 7.\n" +
-                    "2 * 12 + 7 = 31\n" +
-                    "Since the solution slots are 10 wide, this result falls into slot number 4. This is your result.";
+        StringBuilder sb = new StringBuilder();
+        if (!result.isExhaustive()) {
+            sb.append("The time budget ran out, these are the best options found so far:\n");
         }
+        if (result.getBestOption() != null) {
+            appendOption(sb, "Fastest", result.getBestOption());
+        }
+        appendTop(sb, "ExactProduct", result.getExactProducts());
+        appendTop(sb, "RollMultiple", result.getRollMultiples());
+        appendTop(sb, "Discard", result.getDiscards());
+        appendTop(sb, "MultiplyDivideDiscard", result.getMultiplyDivideDiscards());
+        appendTop(sb, "RecyclingDiscard", result.getRecyclingDiscards());
+        out.println(sb.toString());
+    }
 
-        @Override
-        protected String getPrintableOption() {
-            StringBuilder diceString = new StringBuilder();
-            StringBuilder calcInstruction = new StringBuilder();
-            int simDieSides = 1;
-            for (int i = 0; i < requiredRolls.size(); i++) {
-                if (i == 0) {
-                    // First roll does not need joining
-                    diceString.append(requiredRolls.get(i).toString());
-                    // First roll does not need the leading +
-                    calcInstruction
-                            .append("roll")
-                            .append(i + 1)
-                            .append(" * ")
-                            .append(requiredRolls.get(i + 1).getDie().getSides());
-                } else if (i == requiredRolls.size() - 1) {
-                    // Join last one with "and"
-                    diceString.append(String.format(" and %s", requiredRolls.get(i).toString()));
-                    // Last roll should not be multiplied
-                    calcInstruction.append(" + roll").append(i + 1);
-                } else {
-                    diceString.append(String.format(", %s", requiredRolls.get(i).toString()));
-                    calcInstruction
-                            .append(" + roll")
-                            .append(i + 1)
-                            .append(" * ")
-                            .append(requiredRolls.get(i + 1).getDie().getSides());
-                }
-                simDieSides *= requiredRolls.get(i).getNumberOfDice() * requiredRolls.get(i).getDie().getSides();
-            }
-
-            // first result * second die sides + second result * third die sides ...
-
-            double discardProbability = 100 - (((double) discardAbove) / ((double) simDieSides) * 100);
-            return String.format("" +
-                            "1) Roll %s.\n" +
-                            "2) Then replace your roll results in this calculation. Order is the same as above.\n" +
-                            "%s\n" +
-                            "3) Discard any result above %d (probability to discard: %f%%).\n" +
-                            "4) If not discarded, divide the result by %d and round up to the next integer.",
-                    diceString.toString(), calcInstruction.toString(),
-                    discardAbove, discardProbability,
-                    divideBy);
+    private static void appendTop(final StringBuilder sb, final String type,
+                                  final TopOptions<? extends Option> options) {
+        List<? extends Option> sorted = options.getOptions();
+        for (int i = 0; i < sorted.size(); i++) {
+            appendOption(sb, String.format("%s %d of %d", type, i + 1, sorted.size()), sorted.get(i));
         }
     }
 
-    protected DiceInstructionCommand(final Config config) {
-        super(config);
+    private static void appendOption(final StringBuilder sb, final String title, final Option option) {
+        appendOption(sb, title, option, Double.NaN);
     }
 
-    @Override
-    protected String getCommandWord() {
-        return "calc";
+    // The beam gap is shown next to the MultiplyDivideDiscard, see SearchResult.getBeamGap()
+    private static void appendOption(final StringBuilder sb, final String title, final Option option,
+                                     final double beamGap) {
+        if (title != null) {
+            sb.append(title).append(":\n");
+        }
+        sb.append(option.getPrintableOption());
+        sb.append(String.format("%nOn average %.3f dice are thrown per result.", option.getExpectedThrows()));
+        if (!option.isUniform()) {
+            sb.append(" NOT uniform: adding up dice makes the middle results more likely and 1 impossible.");
+        }
+        if (option instanceof MultiplyDivideDiscard && !Double.isNaN(beamGap)) {
+            sb.append(beamGap == 0 ? " The beam search found the best one."
+                    : String.format(" The best one needs %.3f fewer.", beamGap));
+        }
+        if (option instanceof RecyclingDiscard) {
+            RecyclingDiscard recycling = (RecyclingDiscard) option;
+            sb.append(String.format(" Starting over after every discard would need %.3f, recycling saves %.3f.",
+                    recycling.getExpectedThrowsWithoutRecycling(),
+                    recycling.getExpectedThrowsWithoutRecycling() - recycling.getExpectedThrows()));
+        }
+        sb.append("\n-------------------------------------------\n");
     }
 
-    @Override
-    protected void executeCommand(final String commandArgs) {
-        Integer wantedDie = Integer.valueOf(commandArgs);
+    // All dice are calculated in one go and printed as soon as they are known, smallest die first
+    private void executeBatch(final int[] wantedDice) {
+        ConfigSnapshot snapshot = config.getSnapshot();
+        List<SearchResult> cachedResults = new ArrayList<>();
+        List<Integer> uncachedDice = new ArrayList<>();
+        for (int wantedDie : wantedDice) {
+            SearchResult cached = solutionTable.lookup(snapshot, wantedDie);
+            if (cached == null) {
+                cached = cache.get(snapshot, wantedDie);
+            }
+            if (cached == null) {
+                uncachedDice.add(wantedDie);
+            } else {
+                cachedResults.add(cached);
+            }
+        }
 
-        if (wantedDie < 2) {
-            throw new IllegalArgumentException("The desired die is too small. Die must be a d2 or bigger.");
+        // Known dice are printed in between the calculated ones, so the output stays sorted
+        Iterator<SearchResult> cachedIterator = cachedResults.iterator();
+        SearchResult[] nextCached = {cachedIterator.hasNext() ? cachedIterator.next() : null};
+        // Results are printed as they come in, which already shows the progress
+        SearchProgress progress = new SearchProgress();
+        int[] searchedDice = uncachedDice.stream().mapToInt(Integer::intValue).toArray();
+        runWithinBudget(() -> {
+            search.searchAll(snapshot, searchedDice, progress, result -> {
+                while (nextCached[0] != null && nextCached[0].getWantedDie() < result.getWantedDie()) {
+                    printBatchResult(nextCached[0]);
+                    nextCached[0] = cachedIterator.hasNext() ? cachedIterator.next() : null;
+                }
+                // The batch search picks the same options as the bounded search
+                if (snapshot.getEnumerationMode() == EnumerationMode.BOUNDED && result.isExhaustive()) {
+                    cache.put(snapshot, result.getWantedDie(), result);
+                }
+                printBatchResult(result);
+            });
+            return null;
+        }, snapshot, progress, false);
+        while (nextCached[0] != null) {
+            printBatchResult(nextCached[0]);
+            nextCached[0] = cachedIterator.hasNext() ? cachedIterator.next() : null;
         }
+    }
 
-        List<Option> options = new ArrayList<>();
-        for (Integer commonDie : config.getAvailableDice()) {
-            if (wantedDie % commonDie == 0) {
-                options.add(new RollMultiple(new DiceRoll(new Die(commonDie), wantedDie / commonDie)));
+    // Runs the search on the worker thread. Once the time budget of the snapshot is used up the search is stopped
+    // and returns what it found so far.
+    private <T> T runWithinBudget(final Callable<T> task, final ConfigSnapshot snapshot,
+                                  final SearchProgress progress, final boolean showProgress) {
+        Future<T> future = worker.submit(task);
+        long budget = snapshot.getTimeBudgetMillis();
+        long deadline = System.currentTimeMillis() + budget;
+        try {
+            while (true) {
+                long wait = PROGRESS_INTERVAL_MILLIS;
+                if (budget > 0) {
+                    wait = Math.min(wait, deadline - System.currentTimeMillis());
+                    if (wait <= 0) {
+                        progress.stop();
+                        return future.get();
+                    }
+                }
+                try {
+                    return future.get(wait, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // Records are read by programs which do not expect anything else in between
+                    if (showProgress && !progress.isStopped() && resultOutput.getFormat() == OutputFormat.TEXT) {
+                        out.printf("Searched %.1f%% of all dice combinations%n", progress.getFraction() * 100);
+                    }
+                }
             }
-
-            if (wantedDie < commonDie) {
-                options.add(new Discard(new Die(commonDie), wantedDie));
+        } catch (InterruptedException e) {
+            progress.stop();
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException("The search was interrupted.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
+            throw new IllegalStateException(e.getCause());
         }
+    }
 
-        // Start with the smallest die and expand it. If it does not result in anything try lager dies.
-        // If there is still no result, add another die and repeat.
-        options.addAll(expandDie(wantedDie, config.getMaxRollCount()));
+    private void printBatchResult(final SearchResult result) {
+        if (resultOutput.getFormat() == OutputFormat.TEXT) {
+            out.printf("d%d:%n", result.getWantedDie());
+        }
+        printResult(result);
+    }
 
-        if (options.isEmpty()) {
-            System.out.printf("Unable to find any solutions for your d%d%n", wantedDie);
+    private void printResult(final SearchResult result) {
+        if (resultOutput.getFormat() != OutputFormat.TEXT) {
+            resultOutput.write(out, result.getWantedDie(), result.isExhaustive(), getPrintOrder(result));
+            resultOutput.flush();
             return;
         }
-
-        RollMultiple bestRollMultiple = null;
-        Discard bestDiscard = null;
-        MultiplyDivideDiscard bestMDD = null;
-
-        for (Option option : options) {
-            if (option instanceof RollMultiple) {
-                bestRollMultiple = findBestOption(bestRollMultiple, ((RollMultiple) option));
-            }
-            if (option instanceof Discard) {
-                bestDiscard = findBestOption(bestDiscard, ((Discard) option));
-            }
-            if (option instanceof MultiplyDivideDiscard) {
-                bestMDD = findBestOption(bestMDD, ((MultiplyDivideDiscard) option));
-            }
+        if (result.isEmpty()) {
+            out.printf("Unable to find any solutions for your d%d%s%n", result.getWantedDie(),
+                    result.isExhaustive() ? "" : " within the time budget");
+            return;
         }
 
         StringBuilder sb = new StringBuilder();
-        if (bestRollMultiple != null) {
-            sb.append(bestRollMultiple.getPrintableOption());
-            sb.append("\n-------------------------------------------\n");
-        }
-        if (bestDiscard != null) {
-            sb.append(bestDiscard.getPrintableOption());
-            sb.append("\n-------------------------------------------\n");
+        if (!result.isExhaustive()) {
+            sb.append("The time budget ran out, these are the best options found so far:\n");
         }
-        if (bestMDD != null) {
-            sb.append(bestMDD.getPrintableOption());
-            sb.append("\n-------------------------------------------\n");
+        List<Option> options = getPrintOrder(result);
+        boolean fastestShown = result.getBestOption() != null;
+        for (int i = 0; i < options.size(); i++) {
+            appendOption(sb, i == 0 && fastestShown ? "Fastest" : null, options.get(i), result.getBeamGap());
         }
 
-        System.out.println(sb.toString());
+        out.println(sb.toString());
     }
 
-    private <T extends Option> T findBestOption(T champ, T contestant) {
-        if (champ == null) {
-            champ = contestant;
-        } else if (contestant.isBetterThan(champ) > 1) {
-            champ = contestant;
+    // The cheapest uniform option first, followed by the best ones of the other types.
+    // Options which are not uniform come last.
+    private static List<Option> getPrintOrder(final SearchResult result) {
+        List<Option> options = new ArrayList<>();
+        Option best = result.getBestOption();
+        if (best != null) {
+            options.add(best);
         }
-        return champ;
+        result.getOptions().stream().filter(option -> option != best && option.isUniform()).forEach(options::add);
+        result.getOptions().stream().filter(option -> !option.isUniform()).forEach(options::add);
+        return options;
     }
 
-    private List<MultiplyDivideDiscard> expandDie(final int wantedDie, final int maxDieCount) {
-        List<MultiplyDivideDiscard> results = new ArrayList<>();
-
-        // Highest number any digit is allowed to reach
-        int oneDigitLimit = config.getAvailableDice().size() - 1;
-
-        // -1 indicates we do not use this die yet
-        int[] dieCounters = new int[maxDieCount];
-        Arrays.fill(dieCounters, -1);
-        dieCounters[maxDieCount - 1] = 0; // We need to start counting at the last element
-
-        while (!Thread.currentThread().isInterrupted()) {
-            int simulatedDie = 0; // Our current compound die
-            for (int dieCounter : dieCounters) {
-                // Exclude any dies we don't use yet
-                if (dieCounter < 0) {
-                    continue;
+    // Parses comma separated dice and ranges like 2..100. Returns the distinct dice in ascending order.
+    static int[] parseWantedDice(final String commandArgs) {
+        List<Integer> wantedDice = new ArrayList<>();
+        for (String part : commandArgs.replace(" ", "").split(",")) {
+            if (part.contains("..")) {
+                int from = Integer.parseInt(part.substring(0, part.indexOf("..")));
+                int to = Integer.parseInt(part.substring(part.indexOf("..") + 2));
+                if (from > to) {
+                    throw new IllegalArgumentException("The start of a range must not be above its end.");
                 }
-                // If this is the first die, assign it otherwise multiply with previous simulated die
-                if (simulatedDie == 0) {
-                    simulatedDie = config.getAvailableDice().get(dieCounter);
-                } else {
-                    simulatedDie = simulatedDie * config.getAvailableDice().get(dieCounter);
-                }
-            }
-
-            if (simulatedDie > wantedDie) {
-                MultiplyDivideDiscard result = expand(wantedDie, dieCounters, simulatedDie);
-                if (result != null) {
-                    results.add(result);
-                }
-            }
-
-            // increase lowest digit
-            dieCounters[dieCounters.length - 1]++;
-
-            // check if we need to increase the next digit and reset the lower ones
-            for (int i = dieCounters.length - 1; i >= 0; i--) {
-                if (dieCounters[i] > oneDigitLimit) {
-                    // if the highest digit is over the limit, we tried all combinations and reached the end.
-                    if (i == 0) {
-                        return results;
-                    }
-                    dieCounters[i] = 0;
-                    dieCounters[i - 1] = dieCounters[i - 1] + 1;
+                checkBatchSize(wantedDice.size() + (long) to - from + 1);
+                for (int wantedDie = from; wantedDie <= to; wantedDie++) {
+                    wantedDice.add(wantedDie);
                 }
+            } else {
+                checkBatchSize(wantedDice.size() + 1L);
+                wantedDice.add(Integer.parseInt(part));
             }
         }
-        return results;
+        wantedDice.forEach(DiceInstructionCommand::checkWantedDie);
+        return wantedDice.stream().mapToInt(Integer::intValue).distinct().sorted().toArray();
     }
 
-    private MultiplyDivideDiscard expand(int wantedDie, int[] dieIndizes, int simulatedDie) {
-        // Our current die is large enough to fit at least one time the wantedDie range.
-        // Find out by how much the resulting die needs to be divided (if at all):
-        int largestMultiple = 0;
-        int multiplications = 0;
-        while (largestMultiple < simulatedDie) {
-            multiplications++;
-            largestMultiple = wantedDie * multiplications;
-        }
-        largestMultiple -= wantedDie;
-        multiplications--;
-
-        // Find out which results need to be discarded
-        int discardAbove = simulatedDie - (simulatedDie - largestMultiple);
-
-        // first die result * (first die sides + second die sides) + second die result + ...
-
-        // Exclude combinations where the discard is lager than 1/3 of the die
-        // (would mean only one in 3 tries would produce a non-discard result)
-        if (simulatedDie / 3 > discardAbove) {
-            return null;
+    static void checkBatchSize(final long size) {
+        if (size > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException(String.format("Please search at most %d dice at once.",
+                    MAX_BATCH_SIZE));
         }
-        // Exclude combinations where we need to divide by more than 10
-        if (multiplications > 10) {
-            return null;
-        }
-        // Exclude combinations which only have one die, as they are already found by another Option.
-        if (dieIndizes[dieIndizes.length - 2] < 0) {
-            return null;
+    }
+
+    private static void checkWantedDie(final int wantedDie) {
+        if (wantedDie < 2) {
+            throw new IllegalArgumentException("The desired die is too small. Die must be a d2 or bigger.");
         }
+    }
 
-        // Find all dies needed for this option
-        Map<Die, Integer> usedDies = new HashMap<>();
-        for (int dieIndex : dieIndizes) {
-            if (dieIndex >= 0) {
-                Die die = new Die(config.getAvailableDice().get(dieIndex));
-                Integer counter = usedDies.computeIfAbsent(die, ignored -> 0);
-                counter++;
-                usedDies.put(die, counter);
-            }
+    @Override
+    protected String getTimingDetails() {
+        if (lastResultSource != null) {
+            return String.format(" (from %s)", lastResultSource);
+        }
+        if (lastResult == null || lastResult.getThreadCount() < 2 || lastResult.getSearchNanos() == 0) {
+            return "";
         }
-        List<DiceRoll> diceRolls = new ArrayList<>();
-        usedDies.forEach((die, count) -> diceRolls.add(new DiceRoll(die, count)));
-        return new MultiplyDivideDiscard(multiplications, discardAbove, diceRolls);
+        // Time all threads spent searching compared to the time the search took, how many of them were busy on
+        // average. It is no speedup, a single thread might get done faster than this by skipping more.
+        return String.format(" (search on %d threads, %.1f threads busy)", lastResult.getThreadCount(),
+                ((double) lastResult.getWorkNanos()) / lastResult.getSearchNanos());
     }
 }
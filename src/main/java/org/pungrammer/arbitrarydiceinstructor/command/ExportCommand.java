@@ -0,0 +1,60 @@
+package org.pungrammer.arbitrarydiceinstructor.command;
+
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.search.DiceSearch;
+import org.pungrammer.arbitrarydiceinstructor.search.ProductIndex;
+import org.pungrammer.arbitrarydiceinstructor.search.SolutionTable;
+import org.pungrammer.arbitrarydiceinstructor.stats.Statistics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class ExportCommand extends Command {
+
+    private final DiceSearch search;
+    private final SolutionTable solutionTable;
+
+    protected ExportCommand(final Config config, final ProductIndex productIndex, final SolutionTable solutionTable,
+                            final Statistics statistics) {
+        super(config);
+        this.search = new DiceSearch(config, productIndex, statistics);
+        this.solutionTable = solutionTable;
+    }
+
+    // Writes the results of a range of dice to a file and uses it for calc from now on
+    @Override
+    protected void executeCommand(final String commandArgs) {
+        if (commandArgs == null || !commandArgs.trim().contains(" ") || !commandArgs.contains("..")) {
+            throw new IllegalArgumentException("Please specify the dice and the file, e.g. export 2..1000 dice.table");
+        }
+        String range = commandArgs.trim().substring(0, commandArgs.trim().indexOf(" "));
+        Path file = Path.of(commandArgs.trim().substring(commandArgs.trim().indexOf(" ") + 1).trim());
+        int from = Integer.parseInt(range.substring(0, range.indexOf("..")));
+        int to = Integer.parseInt(range.substring(range.indexOf("..") + 2));
+        if (from < 2) {
+            throw new IllegalArgumentException("The desired die is too small. Die must be a d2 or bigger.");
+        }
+        if (from > to) {
+            throw new IllegalArgumentException("The start of a range must not be above its end.");
+        }
+        DiceInstructionCommand.checkBatchSize((long) to - from + 1);
+
+        try {
+            SolutionTable.write(file, config, search, from, to);
+            solutionTable.load(file);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(String.format("Unable to export to %s: %s", file, e.getMessage()));
+        }
+        out.println(solutionTable.getSummary());
+    }
+
+    @Override
+    protected void close() {
+        search.close();
+    }
+
+    @Override
+    protected String getCommandWord() {
+        return "export";
+    }
+}
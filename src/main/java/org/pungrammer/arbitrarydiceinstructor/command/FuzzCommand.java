@@ -0,0 +1,75 @@
+package org.pungrammer.arbitrarydiceinstructor.command;
+
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.stats.LatencyHistogram;
+import org.pungrammer.arbitrarydiceinstructor.verify.DifferentialFuzzer;
+import org.pungrammer.arbitrarydiceinstructor.verify.FuzzReport;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Map;
+
+// Searches random dice with every engine and shows how long each one took.
+// Runs on a config and commands of its own, so the dice and settings of the user stay as they are.
+// Whether the engines agree is checked by DifferentialFuzzerTest, this is only a timing report.
+public class FuzzCommand extends Command {
+
+    private static final int DEFAULT_CASES = 200;
+    private static final String REFERENCE = "odometer";
+
+    protected FuzzCommand(final Config config) {
+        super(config);
+    }
+
+    @Override
+    protected void executeCommand(final String commandArgs) {
+        String[] args = commandArgs == null ? new String[0] : commandArgs.trim().split("\\s+");
+        if (args.length > 2) {
+            throw new IllegalArgumentException("Use fuzz [cases] [seed], e.g. fuzz 500 42");
+        }
+        int cases = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CASES;
+        if (cases < 1) {
+            throw new IllegalArgumentException("Please fuzz at least 1 case.");
+        }
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+
+        Config fuzzConfig = new Config();
+        fuzzConfig.setThreadCount(config.getThreadCount());
+        FuzzReport report;
+        try (CommandParser fuzzCommands = new CommandParser(fuzzConfig);
+             DifferentialFuzzer fuzzer = new DifferentialFuzzer(fuzzConfig, fuzzCommands::execute, seed)) {
+            // setDice and setMaxRollCount print summaries of the index for every case
+            fuzzCommands.setOutput(new PrintStream(OutputStream.nullOutputStream()));
+            report = fuzzer.run(cases);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d cases with seed %d%n", report.getCases(), report.getSeed()));
+        sb.append(String.format("Beam found the best MultiplyDivideDiscard for %d of %d dice%n",
+                report.getBeamBestFound(), report.getBeamCompared()));
+
+        long referenceNanos = report.getLatencies().get(REFERENCE).getTotalNanos();
+        sb.append("Search latencies:");
+        for (Map.Entry<String, LatencyHistogram> entry : report.getLatencies().entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            sb.append(String.format("%n%-8s: %d times, mean %s, p50 %s, p99 %s, max %s, total %dms", entry.getKey(),
+                    histogram.getCount(), millis(histogram.getMeanNanos()),
+                    millis(histogram.getPercentileNanos(50)), millis(histogram.getPercentileNanos(99)),
+                    millis(histogram.getMaxNanos()), histogram.getTotalNanos() / 1_000_000));
+            if (!entry.getKey().equals(REFERENCE)) {
+                sb.append(String.format(" (%.1fx the odometer)", histogram.getTotalNanos() == 0 ? 0
+                        : ((double) referenceNanos) / histogram.getTotalNanos()));
+            }
+        }
+        out.println(sb.toString());
+    }
+
+    private static String millis(final long nanos) {
+        return String.format("%.3fms", nanos / 1_000_000.0);
+    }
+
+    @Override
+    protected String getCommandWord() {
+        return "fuzz";
+    }
+}
@@ -10,12 +10,40 @@ public class HelpCommand extends Command {
 
     @Override
     protected void executeCommand(String commandArgs) {
-        System.out.println("" +
+        out.println("" +
                 "Available commands:\n" +
                 "calc <wantedDie>          : calculates the steps to simulate this die using the available dies\n" +
+                "calc <die1, from..to, ...>: calculates several dice at once, e.g. calc 2..100 or calc 3, 5, 7\n" +
+                "calc <wantedDie> top <k>  : shows the k best options of every kind instead of only the best one\n" +
                 "setDice <die1, die2, ...> : sets the available dies. List is a comma separated list of integers\n" +
                 "                          : Duplicates and spaces are ignored\n" +
-                "help                      : Shows this help");
+                "setMaxRollCount <count>   : sets the maximum number of dice rolled at once\n" +
+                "setThreads <count>        : sets the number of threads used by calc. Defaults to the number of cores\n" +
+                "setTimeBudget <millis>    : sets how long calc searches before it shows the best results so far.\n" +
+                "                          : 0 (default) searches until all dice combinations are checked\n" +
+                "setProductCeiling <size>  : compound dice above this size are never used. Defaults to the largest long\n" +
+                "setEnumeration <mode>     : sets how dice combinations are enumerated. One of:\n" +
+                "                          : indexed (default, looks up precomputed compound dice),\n" +
+                "                          : bounded (skips combinations which can not win),\n" +
+                "                          : multiset (every combination once), odometer (every permutation),\n" +
+                "                          : beam (only grows the most promising combinations, for very large dice)\n" +
+                "setBeamWidth <width>      : sets how many combinations of every size beam grows. Defaults to 64\n" +
+                "beamGap <die1, from..to>  : compares beam to the exhaustive search, how much worse and faster it is\n" +
+                "setFormat <format> [file] : sets how calc writes its results. One of:\n" +
+                "                          : text (default, the instructions to read at the table),\n" +
+                "                          : jsonl (one JSON object per die and line),\n" +
+                "                          : binary (compact records, needs a file). A file gets the records appended\n" +
+                "cache                     : shows how often calc could answer from its cache\n" +
+                "export <from..to> <file>  : writes the results of these dice to a file calc answers from.\n" +
+                "                          : Start with --table <file> to use it again\n" +
+                "verify <wantedDie> [rolls]: follows the instructions of calc with simulated dice on all threads\n" +
+                "                          : and checks that every side of the die comes up equally often\n" +
+                "fuzz [cases] [seed]       : searches random dice with every engine and shows how long each one took\n" +
+                "stats [json|reset]        : shows the latencies of all commands and what the searches did.\n" +
+                "                          : json prints the same as one JSON object, reset starts over\n" +
+                "help                      : Shows this help\n" +
+                "Start with --script <file> to run the commands of a file without a prompt, - reads them from\n" +
+                "the piped input. Add --timings to show how long every command took.");
     }
 
     @Override
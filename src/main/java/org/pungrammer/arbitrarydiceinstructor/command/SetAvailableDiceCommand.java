@@ -1,27 +1,39 @@
 package org.pungrammer.arbitrarydiceinstructor.command;
 
 import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.search.ProductIndex;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class SetAvailableDiceCommand extends Command {
 
-    protected SetAvailableDiceCommand(final Config config) {
+    private final ProductIndex productIndex;
+
+    protected SetAvailableDiceCommand(final Config config, final ProductIndex productIndex) {
         super(config);
+        this.productIndex = productIndex;
     }
 
     @Override
     protected void executeCommand(String commandArgs) {
+        if (commandArgs == null || commandArgs.isBlank()) {
+            throw new IllegalArgumentException("Please specify the dice, e.g. setDice 4,6,8");
+        }
         String sanitizedInput = commandArgs.replace(" ", "");
         String[] parts = sanitizedInput.split(",");
         List<Integer> newDice = new ArrayList<>();
 
         for (String part : parts) {
-            newDice.add(Integer.valueOf(part));
+            int die = Integer.parseInt(part);
+            if (die < 2) {
+                throw new IllegalArgumentException("A die needs at least 2 sides.");
+            }
+            newDice.add(die);
         }
 
         config.setAvailableDice(newDice);
+        out.println(productIndex.getSummary());
     }
 
     @Override
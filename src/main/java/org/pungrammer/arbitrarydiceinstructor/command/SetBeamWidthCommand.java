@@ -0,0 +1,29 @@
+package org.pungrammer.arbitrarydiceinstructor.command;
+
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+
+public class SetBeamWidthCommand extends Command {
+
+    protected SetBeamWidthCommand(final Config config) {
+        super(config);
+    }
+
+    @Override
+    protected void executeCommand(String commandArgs) {
+        if (commandArgs == null) {
+            throw new IllegalArgumentException("Please specify the beam width, e.g. setBeamWidth 256");
+        }
+        int newBeamWidth = Integer.parseInt(commandArgs.trim());
+
+        if (newBeamWidth < 1) {
+            throw new IllegalArgumentException("Beam width must be 1 or higher.");
+        }
+
+        config.setBeamWidth(newBeamWidth);
+    }
+
+    @Override
+    protected String getCommandWord() {
+        return "setBeamWidth";
+    }
+}
@@ -0,0 +1,33 @@
+package org.pungrammer.arbitrarydiceinstructor.command;
+
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.config.EnumerationMode;
+
+import java.util.Locale;
+
+public class SetEnumerationModeCommand extends Command {
+
+    protected SetEnumerationModeCommand(final Config config) {
+        super(config);
+    }
+
+    @Override
+    protected void executeCommand(String commandArgs) {
+        if (commandArgs == null) {
+            throw new IllegalArgumentException("Enumeration mode must be one of odometer, multiset, bounded, indexed, beam.");
+        }
+        EnumerationMode newMode;
+        try {
+            newMode = EnumerationMode.valueOf(commandArgs.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Enumeration mode must be one of odometer, multiset, bounded, indexed, beam.");
+        }
+
+        config.setEnumerationMode(newMode);
+    }
+
+    @Override
+    protected String getCommandWord() {
+        return "setEnumeration";
+    }
+}
@@ -0,0 +1,46 @@
+package org.pungrammer.arbitrarydiceinstructor.command;
+
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.format.OutputFormat;
+import org.pungrammer.arbitrarydiceinstructor.format.ResultOutput;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+public class SetFormatCommand extends Command {
+
+    private final ResultOutput resultOutput;
+
+    protected SetFormatCommand(final Config config, final ResultOutput resultOutput) {
+        super(config);
+        this.resultOutput = resultOutput;
+    }
+
+    // Prints nothing, so the output of a script stays machine readable
+    @Override
+    protected void executeCommand(final String commandArgs) {
+        if (commandArgs == null) {
+            throw new IllegalArgumentException("Format must be one of text, jsonl, binary.");
+        }
+        String[] args = commandArgs.trim().split("\\s+", 2);
+        OutputFormat newFormat;
+        try {
+            newFormat = OutputFormat.valueOf(args[0].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Format must be one of text, jsonl, binary.");
+        }
+        Path file = args.length > 1 ? Path.of(args[1]) : null;
+
+        try {
+            resultOutput.setFormat(newFormat, file);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(String.format("Unable to open %s: %s", file, e.getMessage()));
+        }
+    }
+
+    @Override
+    protected String getCommandWord() {
+        return "setFormat";
+    }
+}
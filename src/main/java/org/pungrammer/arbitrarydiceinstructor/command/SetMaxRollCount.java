@@ -1,11 +1,16 @@
 package org.pungrammer.arbitrarydiceinstructor.command;
 
 import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.config.EnumerationMode;
+import org.pungrammer.arbitrarydiceinstructor.search.ProductIndex;
 
 public class SetMaxRollCount extends Command {
 
-    public SetMaxRollCount(final Config config) {
+    private final ProductIndex productIndex;
+
+    public SetMaxRollCount(final Config config, final ProductIndex productIndex) {
         super(config);
+        this.productIndex = productIndex;
     }
 
     @Override
@@ -15,13 +20,19 @@ public class SetMaxRollCount extends Command {
         if (newMaxCount < 1) {
             throw new IllegalArgumentException("Roll count must be 1 or higher.");
         }
+        if (newMaxCount > Config.LARGEST_MAX_ROLL_COUNT) {
+            throw new IllegalArgumentException("Roll count must be " + Config.LARGEST_MAX_ROLL_COUNT + " or lower.");
+        }
 
-        if (newMaxCount > 5) {
-            System.out.println("It is highly discouraged to increase this value above 5.\n" +
+        // The bounded and indexed searches skip most of the combinations, so they stay fast with a lot more dice
+        if (newMaxCount > 5 && config.getEnumerationMode() != EnumerationMode.BOUNDED
+                && config.getEnumerationMode() != EnumerationMode.INDEXED) {
+            out.println("It is highly discouraged to increase this value above 5.\n" +
                     "If you reconsider, call this command again with a lower value.");
         }
 
         config.setMaxRollCount(newMaxCount);
+        out.println(productIndex.getSummary());
     }
 
     @Override
@@ -0,0 +1,26 @@
+package org.pungrammer.arbitrarydiceinstructor.command;
+
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+
+public class SetProductCeilingCommand extends Command {
+
+    protected SetProductCeilingCommand(final Config config) {
+        super(config);
+    }
+
+    @Override
+    protected void executeCommand(String commandArgs) {
+        long newProductCeiling = Long.parseLong(commandArgs);
+
+        if (newProductCeiling < 2) {
+            throw new IllegalArgumentException("Product ceiling must be 2 or higher.");
+        }
+
+        config.setProductCeiling(newProductCeiling);
+    }
+
+    @Override
+    protected String getCommandWord() {
+        return "setProductCeiling";
+    }
+}
@@ -0,0 +1,26 @@
+package org.pungrammer.arbitrarydiceinstructor.command;
+
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+
+public class SetThreadCountCommand extends Command {
+
+    protected SetThreadCountCommand(final Config config) {
+        super(config);
+    }
+
+    @Override
+    protected void executeCommand(String commandArgs) {
+        int newThreadCount = Integer.parseInt(commandArgs);
+
+        if (newThreadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be 1 or higher.");
+        }
+
+        config.setThreadCount(newThreadCount);
+    }
+
+    @Override
+    protected String getCommandWord() {
+        return "setThreads";
+    }
+}
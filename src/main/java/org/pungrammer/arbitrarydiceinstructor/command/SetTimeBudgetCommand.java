@@ -0,0 +1,26 @@
+package org.pungrammer.arbitrarydiceinstructor.command;
+
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+
+public class SetTimeBudgetCommand extends Command {
+
+    protected SetTimeBudgetCommand(final Config config) {
+        super(config);
+    }
+
+    @Override
+    protected void executeCommand(String commandArgs) {
+        long newTimeBudget = Long.parseLong(commandArgs);
+
+        if (newTimeBudget < 0) {
+            throw new IllegalArgumentException("Time budget must be 0 or higher.");
+        }
+
+        config.setTimeBudgetMillis(newTimeBudget);
+    }
+
+    @Override
+    protected String getCommandWord() {
+        return "setTimeBudget";
+    }
+}
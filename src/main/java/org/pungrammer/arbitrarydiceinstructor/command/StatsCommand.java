@@ -0,0 +1,70 @@
+package org.pungrammer.arbitrarydiceinstructor.command;
+
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.search.SearchCounters;
+import org.pungrammer.arbitrarydiceinstructor.stats.LatencyHistogram;
+import org.pungrammer.arbitrarydiceinstructor.stats.Statistics;
+
+import java.util.Map;
+
+public class StatsCommand extends Command {
+
+    private final Statistics statistics;
+
+    protected StatsCommand(final Config config, final Statistics statistics) {
+        super(config);
+        this.statistics = statistics;
+    }
+
+    @Override
+    protected void executeCommand(final String commandArgs) {
+        if (commandArgs == null) {
+            printStatistics();
+        } else if (commandArgs.trim().equals("json")) {
+            out.println(statistics.toJson());
+        } else if (commandArgs.trim().equals("reset")) {
+            statistics.reset();
+        } else {
+            throw new IllegalArgumentException("Use stats, stats json or stats reset.");
+        }
+    }
+
+    private void printStatistics() {
+        StringBuilder sb = new StringBuilder("Command latencies:\n");
+        for (Map.Entry<String, LatencyHistogram> entry : statistics.getLatencies().entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            sb.append(String.format("%-16s: %d times, mean %s, p50 %s, p90 %s, p99 %s, max %s%n", entry.getKey(),
+                    histogram.getCount(), millis(histogram.getMeanNanos()),
+                    millis(histogram.getPercentileNanos(50)), millis(histogram.getPercentileNanos(90)),
+                    millis(histogram.getPercentileNanos(99)), millis(histogram.getMaxNanos())));
+        }
+
+        SearchCounters counters = statistics.getSearchCounters();
+        sb.append(String.format("Searches: %d%n" +
+                        "Dice combinations looked at: %d%n" +
+                        "Rejected as not larger than the wanted die: %d%n" +
+                        "Rejected as more than 1/3 would be discarded: %d%n" +
+                        "Rejected as it needs to be divided by more than 10: %d%n" +
+                        "Rejected as it is a single die: %d%n" +
+                        "Rejected as it is above the product ceiling: %d%n" +
+                        "Scored: %d%n" +
+                        "Scored for recycling: %d%n" +
+                        "Options created: %d RollMultiple, %d Discard, %d MultiplyDivideDiscard, %d ExactProduct, " +
+                        "%d RecyclingDiscard",
+                statistics.getSearches(), counters.getTuples(), counters.getRejectedTooSmall(),
+                counters.getRejectedDiscardTooLarge(), counters.getRejectedDivideTooLarge(),
+                counters.getRejectedSingleDie(), counters.getRejectedAboveCeiling(), counters.getScored(),
+                counters.getScoredRecycling(), counters.getRollMultiples(), counters.getDiscards(),
+                counters.getMultiplyDivideDiscards(), counters.getExactProducts(), counters.getRecyclingDiscards()));
+        out.println(sb.toString());
+    }
+
+    private static String millis(final long nanos) {
+        return String.format("%.3fms", nanos / 1_000_000.0);
+    }
+
+    @Override
+    protected String getCommandWord() {
+        return "stats";
+    }
+}
@@ -0,0 +1,98 @@
+package org.pungrammer.arbitrarydiceinstructor.command;
+
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.config.ConfigSnapshot;
+import org.pungrammer.arbitrarydiceinstructor.option.Option;
+import org.pungrammer.arbitrarydiceinstructor.option.Recipe;
+import org.pungrammer.arbitrarydiceinstructor.search.DiceSearch;
+import org.pungrammer.arbitrarydiceinstructor.search.ProductIndex;
+import org.pungrammer.arbitrarydiceinstructor.search.SearchCache;
+import org.pungrammer.arbitrarydiceinstructor.search.SearchProgress;
+import org.pungrammer.arbitrarydiceinstructor.search.SearchResult;
+import org.pungrammer.arbitrarydiceinstructor.stats.Statistics;
+import org.pungrammer.arbitrarydiceinstructor.verify.MonteCarloVerifier;
+import org.pungrammer.arbitrarydiceinstructor.verify.Verification;
+
+// Simulates the instructions calc prints for a die and checks that they really roll that die
+public class VerifyCommand extends Command {
+
+    private static final long DEFAULT_ROLLS = 10_000_000;
+    // Every thread counts every side in its own array
+    private static final int LARGEST_DIE = 1_000_000;
+
+    private final DiceSearch search;
+    private final SearchCache cache;
+
+    protected VerifyCommand(final Config config, final SearchCache cache, final ProductIndex productIndex,
+                            final Statistics statistics) {
+        super(config);
+        this.search = new DiceSearch(config, productIndex, statistics);
+        this.cache = cache;
+    }
+
+    @Override
+    protected void executeCommand(final String commandArgs) {
+        if (commandArgs == null) {
+            throw new IllegalArgumentException("Please specify the die to verify, e.g. verify 97 or verify 97 1000000");
+        }
+        String[] args = commandArgs.trim().split("\\s+");
+        int wantedDie = Integer.parseInt(args[0]);
+        if (wantedDie < 2 || wantedDie > LARGEST_DIE) {
+            throw new IllegalArgumentException(String.format("Only d2 to d%d can be verified.", LARGEST_DIE));
+        }
+        long rolls = args.length > 1
+                ? Long.parseLong(args[1]) : Math.max(DEFAULT_ROLLS, 100L * wantedDie);
+        if (rolls < (long) MonteCarloVerifier.MIN_ROLLS_PER_SIDE * wantedDie) {
+            throw new IllegalArgumentException(String.format("Please roll at least %d times to verify a d%d.",
+                    (long) MonteCarloVerifier.MIN_ROLLS_PER_SIDE * wantedDie, wantedDie));
+        }
+
+        ConfigSnapshot snapshot = config.getSnapshot();
+        SearchResult result = cache.get(snapshot, wantedDie);
+        if (result == null) {
+            result = search.search(snapshot, wantedDie, new SearchProgress());
+            cache.put(snapshot, wantedDie, result);
+        }
+        if (result.isEmpty()) {
+            out.printf("Unable to find any solutions for your d%d%n", wantedDie);
+            return;
+        }
+
+        MonteCarloVerifier verifier = new MonteCarloVerifier(config.getThreadCount(), System.nanoTime());
+        StringBuilder sb = new StringBuilder();
+        for (Option option : result.getOptions()) {
+            Recipe recipe = option.getRecipe();
+            Verification verification = verifier.verify(recipe, wantedDie, rolls);
+            sb.append(String.format("%s:%n", option.getClass().getSimpleName()));
+            sb.append(String.format("%d rolls in %dms on %d threads: %.1f million rolls/s%n",
+                    verification.getRolls(), verification.getNanos() / 1_000_000, verification.getThreadCount(),
+                    verification.getRollsPerSecond() / 1e6));
+            sb.append(String.format("Discarded: %.4f%% (instructions say %.4f%%)%n",
+                    verification.getDiscardRate() * 100, verification.getExpectedDiscardProbability() * 100));
+            if (verification.getOutsideRange() > 0) {
+                sb.append(String.format("Results outside of 1 to %d: %d%n", wantedDie,
+                        verification.getOutsideRange()));
+            }
+            sb.append(String.format("Chi-square: %.2f with %d degrees of freedom, p-value %.4f%n",
+                    verification.getChiSquare(), verification.getDegreesOfFreedom(), verification.getPValue()));
+            sb.append(verification.isUniform()
+                    ? String.format("Rolls a uniform d%d", wantedDie)
+                    : String.format("Does NOT roll a uniform d%d", wantedDie));
+            if (!option.isUniform()) {
+                sb.append(", as expected for dice which are added up");
+            }
+            sb.append("\n-------------------------------------------\n");
+        }
+        out.println(sb.toString());
+    }
+
+    @Override
+    protected void close() {
+        search.close();
+    }
+
+    @Override
+    protected String getCommandWord() {
+        return "verify";
+    }
+}
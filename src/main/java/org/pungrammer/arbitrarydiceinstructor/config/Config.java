@@ -1,31 +1,126 @@
 package org.pungrammer.arbitrarydiceinstructor.config;
 
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
+// Settings shared by all commands of a CommandParser.
+// Every change publishes a new ConfigSnapshot, so readers never see a half done change.
 public class Config {
 
-    private List<Integer> availableDice;
-    private int maxRollCount;
+    // The product index, the solution table and the binary results store the number of dice of a roll in a byte
+    public static final int LARGEST_MAX_ROLL_COUNT = Byte.MAX_VALUE;
+
+    private final AtomicReference<ConfigSnapshot> snapshot;
+    // Called whenever the dice, the max roll count or the product ceiling change, as all of them change
+    // the results of calc
+    private final List<DiceChangeListener> diceChangeListeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> maxRollCountChangeListeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> productCeilingChangeListeners = new CopyOnWriteArrayList<>();
 
     public Config() {
-        availableDice = List.of(4, 6, 8, 10, 12, 20, 100);
-        maxRollCount = 3;
+        snapshot = new AtomicReference<>(new ConfigSnapshot(List.of(4, 6, 8, 10, 12, 20, 100), 3,
+                EnumerationMode.INDEXED, Runtime.getRuntime().availableProcessors(), 0, Long.MAX_VALUE, 64));
+    }
+
+    // Everything a calc needs. Use one snapshot for the whole calc instead of the getters below,
+    // as another thread may change the config in between.
+    public ConfigSnapshot getSnapshot() {
+        return snapshot.get();
     }
 
     public List<Integer> getAvailableDice() {
-        return availableDice;
+        return snapshot.get().getAvailableDice();
     }
 
-    public void setAvailableDice(final List<Integer> dice) {
-        availableDice = dice.stream().distinct().sorted(Integer::compareTo).collect(Collectors.toList());
+    public synchronized void setAvailableDice(final List<Integer> dice) {
+        List<Integer> availableDice = getAvailableDice();
+        List<Integer> newDice = dice.stream().distinct().sorted(Integer::compareTo).collect(Collectors.toList());
+        if (!newDice.equals(availableDice)) {
+            List<Integer> addedDice = newDice.stream().filter(die -> !availableDice.contains(die))
+                    .collect(Collectors.toList());
+            List<Integer> removedDice = availableDice.stream().filter(die -> !newDice.contains(die))
+                    .collect(Collectors.toList());
+            snapshot.set(snapshot.get().withAvailableDice(newDice));
+            diceChangeListeners.forEach(listener -> listener.diceChanged(addedDice, removedDice));
+        }
     }
 
     public int getMaxRollCount() {
-        return maxRollCount;
+        return snapshot.get().getMaxRollCount();
+    }
+
+    public synchronized void setMaxRollCount(final int maxRollCount) {
+        if (getMaxRollCount() != maxRollCount) {
+            snapshot.set(snapshot.get().withMaxRollCount(maxRollCount));
+            maxRollCountChangeListeners.forEach(Runnable::run);
+        }
+    }
+
+    public EnumerationMode getEnumerationMode() {
+        return snapshot.get().getEnumerationMode();
+    }
+
+    public synchronized void setEnumerationMode(final EnumerationMode enumerationMode) {
+        snapshot.set(snapshot.get().withEnumerationMode(enumerationMode));
+    }
+
+    public int getThreadCount() {
+        return snapshot.get().getThreadCount();
+    }
+
+    public synchronized void setThreadCount(final int threadCount) {
+        snapshot.set(snapshot.get().withThreadCount(threadCount));
+    }
+
+    // How long calc may search before it answers with the best results so far, 0 for no limit
+    public long getTimeBudgetMillis() {
+        return snapshot.get().getTimeBudgetMillis();
+    }
+
+    public synchronized void setTimeBudgetMillis(final long timeBudgetMillis) {
+        snapshot.set(snapshot.get().withTimeBudgetMillis(timeBudgetMillis));
+    }
+
+    // Compound dice above this are never used by the long arithmetic of the search.
+    // Products which do not fit into a long are always above.
+    public long getProductCeiling() {
+        return snapshot.get().getProductCeiling();
+    }
+
+    public synchronized void setProductCeiling(final long productCeiling) {
+        if (getProductCeiling() != productCeiling) {
+            snapshot.set(snapshot.get().withProductCeiling(productCeiling));
+            productCeilingChangeListeners.forEach(Runnable::run);
+        }
+    }
+
+    // Number of compound dice of every roll count the beam enumeration grows further
+    public int getBeamWidth() {
+        return snapshot.get().getBeamWidth();
+    }
+
+    public synchronized void setBeamWidth(final int beamWidth) {
+        snapshot.set(snapshot.get().withBeamWidth(beamWidth));
+    }
+
+    // Called on any change of the dice, the max roll count or the product ceiling
+    public void addChangeListener(final Runnable listener) {
+        diceChangeListeners.add((addedDice, removedDice) -> listener.run());
+        maxRollCountChangeListeners.add(listener);
+        productCeilingChangeListeners.add(listener);
+    }
+
+    public void addDiceChangeListener(final DiceChangeListener listener) {
+        diceChangeListeners.add(listener);
+    }
+
+    public void addMaxRollCountChangeListener(final Runnable listener) {
+        maxRollCountChangeListeners.add(listener);
     }
 
-    public void setMaxRollCount(final int maxRollCount) {
-        this.maxRollCount = maxRollCount;
+    public void addProductCeilingChangeListener(final Runnable listener) {
+        productCeilingChangeListeners.add(listener);
     }
 }
@@ -0,0 +1,143 @@
+package org.pungrammer.arbitrarydiceinstructor.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// State of a Config at one point in time. Never changes, so a calc can use one snapshot for its whole run
+// while other threads change the config.
+// The dice are also kept as primitives for the hot loops of the search. Arrays returned by the getters are
+// shared by everybody using the snapshot and must not be modified.
+public final class ConfigSnapshot {
+
+    private final List<Integer> availableDice;
+    // Sides of the available dice, ascending
+    private final int[] sides;
+    // Prime factors of every die in the order of sides, ascending and repeated as often as they divide the die
+    private final int[][] primeFactors;
+    private final int maxRollCount;
+    private final EnumerationMode enumerationMode;
+    private final int threadCount;
+    private final long timeBudgetMillis;
+    private final long productCeiling;
+    private final int beamWidth;
+
+    ConfigSnapshot(final List<Integer> availableDice, final int maxRollCount, final EnumerationMode enumerationMode,
+                   final int threadCount, final long timeBudgetMillis, final long productCeiling,
+                   final int beamWidth) {
+        this.availableDice = List.copyOf(availableDice);
+        this.sides = availableDice.stream().mapToInt(Integer::intValue).toArray();
+        this.primeFactors = new int[sides.length][];
+        for (int i = 0; i < sides.length; i++) {
+            primeFactors[i] = factorize(sides[i]);
+        }
+        this.maxRollCount = maxRollCount;
+        this.enumerationMode = enumerationMode;
+        this.threadCount = threadCount;
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.productCeiling = productCeiling;
+        this.beamWidth = beamWidth;
+    }
+
+    // The dice are only compiled again if they change
+    private ConfigSnapshot(final ConfigSnapshot dice, final int maxRollCount, final EnumerationMode enumerationMode,
+                           final int threadCount, final long timeBudgetMillis, final long productCeiling,
+                           final int beamWidth) {
+        this.availableDice = dice.availableDice;
+        this.sides = dice.sides;
+        this.primeFactors = dice.primeFactors;
+        this.maxRollCount = maxRollCount;
+        this.enumerationMode = enumerationMode;
+        this.threadCount = threadCount;
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.productCeiling = productCeiling;
+        this.beamWidth = beamWidth;
+    }
+
+    ConfigSnapshot withAvailableDice(final List<Integer> availableDice) {
+        return new ConfigSnapshot(availableDice, maxRollCount, enumerationMode, threadCount, timeBudgetMillis,
+                productCeiling, beamWidth);
+    }
+
+    ConfigSnapshot withMaxRollCount(final int maxRollCount) {
+        return new ConfigSnapshot(this, maxRollCount, enumerationMode, threadCount, timeBudgetMillis,
+                productCeiling, beamWidth);
+    }
+
+    ConfigSnapshot withEnumerationMode(final EnumerationMode enumerationMode) {
+        return new ConfigSnapshot(this, maxRollCount, enumerationMode, threadCount, timeBudgetMillis,
+                productCeiling, beamWidth);
+    }
+
+    ConfigSnapshot withThreadCount(final int threadCount) {
+        return new ConfigSnapshot(this, maxRollCount, enumerationMode, threadCount, timeBudgetMillis,
+                productCeiling, beamWidth);
+    }
+
+    ConfigSnapshot withTimeBudgetMillis(final long timeBudgetMillis) {
+        return new ConfigSnapshot(this, maxRollCount, enumerationMode, threadCount, timeBudgetMillis,
+                productCeiling, beamWidth);
+    }
+
+    ConfigSnapshot withProductCeiling(final long productCeiling) {
+        return new ConfigSnapshot(this, maxRollCount, enumerationMode, threadCount, timeBudgetMillis,
+                productCeiling, beamWidth);
+    }
+
+    ConfigSnapshot withBeamWidth(final int beamWidth) {
+        return new ConfigSnapshot(this, maxRollCount, enumerationMode, threadCount, timeBudgetMillis,
+                productCeiling, beamWidth);
+    }
+
+    // Unmodifiable, ascending
+    public List<Integer> getAvailableDice() {
+        return availableDice;
+    }
+
+    public int[] getSides() {
+        return sides;
+    }
+
+    public int[][] getPrimeFactors() {
+        return primeFactors;
+    }
+
+    public int getMaxRollCount() {
+        return maxRollCount;
+    }
+
+    public EnumerationMode getEnumerationMode() {
+        return enumerationMode;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    public long getProductCeiling() {
+        return productCeiling;
+    }
+
+    public int getBeamWidth() {
+        return beamWidth;
+    }
+
+    // Trial division, fast enough for anything in the int range
+    public static int[] factorize(final int die) {
+        List<Integer> factors = new ArrayList<>();
+        int rest = die;
+        for (int factor = 2; (long) factor * factor <= rest; factor++) {
+            while (rest % factor == 0) {
+                factors.add(factor);
+                rest /= factor;
+            }
+        }
+        if (rest > 1) {
+            factors.add(rest);
+        }
+        return factors.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,9 @@
+package org.pungrammer.arbitrarydiceinstructor.config;
+
+import java.util.List;
+
+// Told which dice were added and removed, so derived state can be updated instead of rebuilt
+public interface DiceChangeListener {
+
+    void diceChanged(List<Integer> addedDice, List<Integer> removedDice);
+}
@@ -0,0 +1,16 @@
+package org.pungrammer.arbitrarydiceinstructor.config;
+
+public enum EnumerationMode {
+    // Walks every ordered tuple of dice like an odometer. Every permutation of the same dice is visited.
+    ODOMETER,
+    // Only visits non-decreasing tuples of dice, so every combination of dice is visited exactly once.
+    MULTISET,
+    // Visits combinations like MULTISET, but skips every combination which can not beat the best option found so far.
+    BOUNDED,
+    // Looks up the compound dice in an index of all compound dice, built whenever the dice change.
+    // Dice too large for the index are searched like BOUNDED.
+    INDEXED,
+    // Grows compound dice one die at a time and only keeps the beam width most promising ones of every roll count.
+    // Fast for very large dice and roll counts, but may miss the best MultiplyDivideDiscard.
+    BEAM
+}
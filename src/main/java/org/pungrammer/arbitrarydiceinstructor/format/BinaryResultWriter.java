@@ -0,0 +1,55 @@
+package org.pungrammer.arbitrarydiceinstructor.format;
+
+import org.pungrammer.arbitrarydiceinstructor.dice.DiceRoll;
+import org.pungrammer.arbitrarydiceinstructor.dice.Die;
+import org.pungrammer.arbitrarydiceinstructor.option.Option;
+import org.pungrammer.arbitrarydiceinstructor.option.RecyclingDiscard;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+// Records of variable length, one per wanted die, big endian like the SolutionTable:
+// wanted die (int), flags (byte): 1 = exhaustive, number of options (int)
+// every option, in the order calc prints them, the fastest first:
+//   type (byte): same bits as the flags of the SolutionTable
+//   number of rolls (byte), every roll: die sides (int), number of dice (int)
+//   divide by (int), discard above (long): 0 if nothing is discarded
+//   number of recycling dice (byte), every recycling die: sides (int)
+//   expected throws (double)
+class BinaryResultWriter extends ResultWriter {
+
+    private static final byte EXHAUSTIVE = 1;
+
+    @Override
+    void write(final OutputStream out, final int wantedDie, final boolean exhaustive,
+               final List<? extends Option> options) throws IOException {
+        startRecord();
+        putInt(wantedDie);
+        putByte(exhaustive ? EXHAUSTIVE : 0);
+        putInt(options.size());
+        for (Option option : options) {
+            putOption(option);
+        }
+        endRecord(out);
+    }
+
+    private void putOption(final Option option) {
+        putByte(typeOf(option));
+        List<DiceRoll> rolls = rollsOf(option);
+        putByte(rolls.size());
+        for (DiceRoll roll : rolls) {
+            putInt(roll.getDie().getSides());
+            putInt(roll.getNumberOfDice());
+        }
+        putInt(divideByOf(option));
+        putLong(discardAboveOf(option));
+        List<Die> recyclingDice = option instanceof RecyclingDiscard
+                ? ((RecyclingDiscard) option).getRecyclingDice() : List.of();
+        putByte(recyclingDice.size());
+        for (Die die : recyclingDice) {
+            putInt(die.getSides());
+        }
+        putLong(Double.doubleToLongBits(option.getExpectedThrows()));
+    }
+}
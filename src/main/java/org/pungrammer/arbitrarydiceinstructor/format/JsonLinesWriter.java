@@ -0,0 +1,121 @@
+package org.pungrammer.arbitrarydiceinstructor.format;
+
+import org.pungrammer.arbitrarydiceinstructor.dice.DiceRoll;
+import org.pungrammer.arbitrarydiceinstructor.dice.Die;
+import org.pungrammer.arbitrarydiceinstructor.option.Option;
+import org.pungrammer.arbitrarydiceinstructor.option.RecyclingDiscard;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// One JSON object per wanted die and line, e.g.
+// {"die":13,"exhaustive":true,"options":[{"type":"RecyclingDiscard","dice":[[100,1]],"divideBy":7,
+//  "discardAbove":91,"recyclingDice":[6,20],"expectedThrows":1.093023},...]}
+// dice are pairs of sides and number of dice. discardAbove is left out if nothing is discarded,
+// recyclingDice if nothing is recycled. "uniform":false marks options which do not roll every side equally often,
+// it is left out for all others. The options are in the order calc prints them, the fastest first.
+// Everything is ASCII, so the bytes are written directly.
+class JsonLinesWriter extends ResultWriter {
+
+    // Decimals of expectedThrows
+    private static final long THROWS_SCALE = 1_000_000;
+
+    private static final byte[] DIE = ascii("{\"die\":");
+    private static final byte[] EXHAUSTIVE = ascii(",\"exhaustive\":");
+    private static final byte[] OPTIONS = ascii(",\"options\":[");
+    private static final byte[] TYPE = ascii("{\"type\":\"");
+    private static final byte[] DICE = ascii("\",\"dice\":[");
+    private static final byte[] DIVIDE_BY = ascii("],\"divideBy\":");
+    private static final byte[] DISCARD_ABOVE = ascii(",\"discardAbove\":");
+    private static final byte[] RECYCLING_DICE = ascii(",\"recyclingDice\":[");
+    private static final byte[] EXPECTED_THROWS = ascii(",\"expectedThrows\":");
+    private static final byte[] NOT_UNIFORM = ascii(",\"uniform\":false");
+    private static final byte[] TRUE = ascii("true");
+    private static final byte[] FALSE = ascii("false");
+    private static final byte[] END = ascii("]}\n");
+
+    // "RollMultiple", "Discard" and so on, only converted once per type
+    private static final ClassValue<byte[]> TYPE_NAMES = new ClassValue<>() {
+        @Override
+        protected byte[] computeValue(final Class<?> type) {
+            return ascii(type.getSimpleName());
+        }
+    };
+
+    @Override
+    void write(final OutputStream out, final int wantedDie, final boolean exhaustive,
+               final List<? extends Option> options) throws IOException {
+        startRecord();
+        putBytes(DIE);
+        putDigits(wantedDie);
+        putBytes(EXHAUSTIVE);
+        putBytes(exhaustive ? TRUE : FALSE);
+        putBytes(OPTIONS);
+        for (int i = 0; i < options.size(); i++) {
+            if (i > 0) {
+                putByte(',');
+            }
+            putOption(options.get(i));
+        }
+        putBytes(END);
+        endRecord(out);
+    }
+
+    private void putOption(final Option option) {
+        putBytes(TYPE);
+        putBytes(TYPE_NAMES.get(option.getClass()));
+        putBytes(DICE);
+        List<DiceRoll> rolls = rollsOf(option);
+        for (int i = 0; i < rolls.size(); i++) {
+            if (i > 0) {
+                putByte(',');
+            }
+            putByte('[');
+            putDigits(rolls.get(i).getDie().getSides());
+            putByte(',');
+            putDigits(rolls.get(i).getNumberOfDice());
+            putByte(']');
+        }
+        putBytes(DIVIDE_BY);
+        putDigits(divideByOf(option));
+        if (discardAboveOf(option) > 0) {
+            putBytes(DISCARD_ABOVE);
+            putDigits(discardAboveOf(option));
+        }
+        if (option instanceof RecyclingDiscard) {
+            putBytes(RECYCLING_DICE);
+            List<Die> recyclingDice = ((RecyclingDiscard) option).getRecyclingDice();
+            for (int i = 0; i < recyclingDice.size(); i++) {
+                if (i > 0) {
+                    putByte(',');
+                }
+                putDigits(recyclingDice.get(i).getSides());
+            }
+            putByte(']');
+        }
+        putBytes(EXPECTED_THROWS);
+        putFixed(option.getExpectedThrows());
+        if (!option.isUniform()) {
+            putBytes(NOT_UNIFORM);
+        }
+        putByte('}');
+    }
+
+    // Six decimals, without going through a String like Double.toString()
+    private void putFixed(final double value) {
+        long scaled = Math.round(value * THROWS_SCALE);
+        putDigits(scaled / THROWS_SCALE);
+        putByte('.');
+        long fraction = scaled % THROWS_SCALE;
+        for (long digit = THROWS_SCALE / 10; digit > 1 && fraction < digit; digit /= 10) {
+            putByte('0');
+        }
+        putDigits(fraction);
+    }
+
+    private static byte[] ascii(final String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,10 @@
+package org.pungrammer.arbitrarydiceinstructor.format;
+
+public enum OutputFormat {
+    // The instructions of every option as they are read at the table
+    TEXT,
+    // One JSON object per wanted die and line, see JsonLinesWriter
+    JSONL,
+    // Compact records for programs, see BinaryResultWriter
+    BINARY
+}
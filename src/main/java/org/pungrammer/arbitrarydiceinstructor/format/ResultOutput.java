@@ -0,0 +1,74 @@
+package org.pungrammer.arbitrarydiceinstructor.format;
+
+import org.pungrammer.arbitrarydiceinstructor.option.Option;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// How calc writes its results, shared by the commands of a CommandParser.
+// Records go to the output of the command unless a file is set. Binary records always need a file,
+// as the other commands print text to their output.
+public class ResultOutput {
+
+    private final JsonLinesWriter jsonLinesWriter = new JsonLinesWriter();
+    private final BinaryResultWriter binaryWriter = new BinaryResultWriter();
+    private OutputFormat format = OutputFormat.TEXT;
+    private Path path;
+    private OutputStream file;
+
+    public synchronized OutputFormat getFormat() {
+        return format;
+    }
+
+    // Records are appended to the file, null writes them to the output of the command
+    public synchronized void setFormat(final OutputFormat format, final Path path) throws IOException {
+        if (format == OutputFormat.BINARY && path == null) {
+            throw new IllegalArgumentException("Binary results need a file, e.g. setFormat binary results.bin");
+        }
+        if (format == OutputFormat.TEXT && path != null) {
+            throw new IllegalArgumentException("Text is only printed, use jsonl or binary to write to a file.");
+        }
+        OutputStream newFile = path == null ? null : new BufferedOutputStream(Files.newOutputStream(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+        close();
+        this.format = format;
+        this.path = path;
+        this.file = newFile;
+    }
+
+    // The options in the order they are printed, the best first. Only for JSONL and BINARY.
+    public synchronized void write(final OutputStream out, final int wantedDie, final boolean exhaustive,
+                                   final List<? extends Option> options) {
+        ResultWriter writer = format == OutputFormat.BINARY ? binaryWriter : jsonLinesWriter;
+        try {
+            writer.write(file == null ? out : file, wantedDie, exhaustive, options);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(String.format("Unable to write to %s: %s", path, e.getMessage()));
+        }
+    }
+
+    // Records of a finished calc are in the file even if the program is ended right after.
+    // The output of the command is left to its owner, so scripts keep their buffer.
+    public synchronized void flush() {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.flush();
+        } catch (IOException e) {
+            throw new IllegalArgumentException(String.format("Unable to write to %s: %s", path, e.getMessage()));
+        }
+    }
+
+    private void close() throws IOException {
+        if (file != null) {
+            file.close();
+            file = null;
+        }
+    }
+}
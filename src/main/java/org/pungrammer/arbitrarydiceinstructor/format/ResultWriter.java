@@ -0,0 +1,153 @@
+package org.pungrammer.arbitrarydiceinstructor.format;
+
+import org.pungrammer.arbitrarydiceinstructor.dice.DiceRoll;
+import org.pungrammer.arbitrarydiceinstructor.option.Discard;
+import org.pungrammer.arbitrarydiceinstructor.option.ExactProduct;
+import org.pungrammer.arbitrarydiceinstructor.option.MultiplyDivideDiscard;
+import org.pungrammer.arbitrarydiceinstructor.option.Option;
+import org.pungrammer.arbitrarydiceinstructor.option.RecyclingDiscard;
+import org.pungrammer.arbitrarydiceinstructor.option.RollMultiple;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+// Writes the options of a wanted die as one record without building the printable instructions.
+// Dice beyond the int range are only printed as text, so BigMultiplyDivideDiscard is never written.
+// A record is assembled in a buffer which is reused for every record and written to the stream in one go.
+// Not thread safe, every ResultOutput has its own writers.
+abstract class ResultWriter {
+
+    // Same bits as the flags of the SolutionTable
+    static final byte ROLL_MULTIPLE = 1;
+    static final byte DISCARD = 2;
+    static final byte MULTIPLY_DIVIDE_DISCARD = 4;
+    static final byte EXACT_PRODUCT = 8;
+    static final byte RECYCLING_DISCARD = 16;
+
+    private byte[] buffer = new byte[256];
+    private int length;
+
+    // The options in the order they are printed, the best first
+    abstract void write(OutputStream out, int wantedDie, boolean exhaustive, List<? extends Option> options)
+            throws IOException;
+
+    final void startRecord() {
+        length = 0;
+    }
+
+    final void endRecord(final OutputStream out) throws IOException {
+        out.write(buffer, 0, length);
+    }
+
+    final void putByte(final int value) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) value;
+    }
+
+    final void putBytes(final byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    // Big endian like DataOutputStream
+    final void putInt(final int value) {
+        ensureCapacity(4);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            buffer[length++] = (byte) (value >>> shift);
+        }
+    }
+
+    final void putLong(final long value) {
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[length++] = (byte) (value >>> shift);
+        }
+    }
+
+    // Decimal digits of a value which is not negative
+    final void putDigits(final long value) {
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        long rest = value;
+        for (int i = length + digits - 1; i >= length; i--) {
+            buffer[i] = (byte) ('0' + rest % 10);
+            rest /= 10;
+        }
+        length += digits;
+    }
+
+    private void ensureCapacity(final int additional) {
+        if (length + additional > buffer.length) {
+            byte[] grown = new byte[Math.max(buffer.length * 2, length + additional)];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+    }
+
+    static byte typeOf(final Option option) {
+        if (option instanceof RollMultiple) {
+            return ROLL_MULTIPLE;
+        }
+        if (option instanceof Discard) {
+            return DISCARD;
+        }
+        if (option instanceof MultiplyDivideDiscard) {
+            return MULTIPLY_DIVIDE_DISCARD;
+        }
+        if (option instanceof ExactProduct) {
+            return EXACT_PRODUCT;
+        }
+        if (option instanceof RecyclingDiscard) {
+            return RECYCLING_DISCARD;
+        }
+        throw new IllegalArgumentException("Unknown option " + option.getClass().getSimpleName());
+    }
+
+    // The dice rolled at once. RollMultiple adds them up, all other options multiply them.
+    static List<DiceRoll> rollsOf(final Option option) {
+        switch (typeOf(option)) {
+            case ROLL_MULTIPLE:
+                return List.of(((RollMultiple) option).getRoll());
+            case DISCARD:
+                return List.of(new DiceRoll(((Discard) option).getDie(), 1));
+            case MULTIPLY_DIVIDE_DISCARD:
+                return ((MultiplyDivideDiscard) option).getRequiredRolls();
+            case EXACT_PRODUCT:
+                return ((ExactProduct) option).getRequiredRolls();
+            default:
+                return ((RecyclingDiscard) option).getRequiredRolls();
+        }
+    }
+
+    static int divideByOf(final Option option) {
+        switch (typeOf(option)) {
+            case MULTIPLY_DIVIDE_DISCARD:
+                return ((MultiplyDivideDiscard) option).getDivideBy();
+            case EXACT_PRODUCT:
+                return ((ExactProduct) option).getDivideBy();
+            case RECYCLING_DISCARD:
+                return ((RecyclingDiscard) option).getDivideBy();
+            default:
+                return 1;
+        }
+    }
+
+    // 0 if nothing is discarded
+    static long discardAboveOf(final Option option) {
+        switch (typeOf(option)) {
+            case DISCARD:
+                return ((Discard) option).getDiscardAbove();
+            case MULTIPLY_DIVIDE_DISCARD:
+                return ((MultiplyDivideDiscard) option).getDiscardAbove();
+            case RECYCLING_DISCARD:
+                return ((RecyclingDiscard) option).getDiscardAbove();
+            default:
+                return 0;
+        }
+    }
+}
@@ -1,43 +1,131 @@
 package org.pungrammer.arbitrarydiceinstructor.main;
 
-import org.pungrammer.arbitrarydiceinstructor.command.Command;
 import org.pungrammer.arbitrarydiceinstructor.command.CommandParser;
 import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.search.SolutionTable;
+import org.pungrammer.arbitrarydiceinstructor.server.DiceServer;
+import org.pungrammer.arbitrarydiceinstructor.server.LoadGenerator;
 
 import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class Main {
 
-    public static void main(final String[] varargs) throws IOException {
-        System.out.println("Enter help to show help. Enter exit to end the program.");
+    public static void main(final String[] varargs) throws IOException, InterruptedException {
+        // --server <port> [--table <file>] serves the commands to clients on this machine.
+        // All sessions answer calc from the same table.
+        if ((varargs.length == 2 || varargs.length == 4 && varargs[2].equals("--table"))
+                && varargs[0].equals("--server")) {
+            DiceServer server = new DiceServer(Integer.parseInt(varargs[1]));
+            if (varargs.length == 4) {
+                try {
+                    server.loadTable(Path.of(varargs[3]));
+                    System.out.println(server.getTableSummary());
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Unable to load solution table, searching instead: " + e.getMessage());
+                }
+            }
+            server.bind();
+            System.out.printf("Serving on port %d%n", server.getPort());
+            server.serve();
+            return;
+        }
+        // --load <clients> <requests> [port] measures the server on this port, or one started just for this
+        if ((varargs.length == 3 || varargs.length == 4) && varargs[0].equals("--load")) {
+            runLoad(Integer.parseInt(varargs[1]), Integer.parseInt(varargs[2]),
+                    varargs.length == 4 ? Integer.parseInt(varargs[3]) : -1);
+            return;
+        }
+
+        // --table <file> answers calc from a file written by export.
+        // --script <file> runs the commands of the file without a prompt, - reads them from the piped input.
+        // --timings keeps the timing line of every command in a script.
+        Path table = null;
+        String script = null;
+        boolean timingShown = false;
+        for (int i = 0; i < varargs.length; i++) {
+            if (varargs[i].equals("--table") && i + 1 < varargs.length) {
+                table = Path.of(varargs[++i]);
+            } else if (varargs[i].equals("--script") && i + 1 < varargs.length) {
+                script = varargs[++i];
+            } else if (varargs[i].equals("--timings")) {
+                timingShown = true;
+            } else {
+                System.err.println("Unknown argument: " + varargs[i]);
+                System.exit(2);
+            }
+        }
+
+        if (script == null) {
+            System.out.println("Enter help to show help. Enter exit to end the program.");
+        }
+
+        Config config = new Config();
+        SolutionTable solutionTable = new SolutionTable(config);
+        if (table != null) {
+            try {
+                solutionTable.load(table);
+                // Scripts only print what their commands print
+                if (script == null) {
+                    System.out.println(solutionTable.getSummary());
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Unable to load solution table, searching instead: " + e.getMessage());
+            }
+        }
+
+        CommandParser cp = new CommandParser(config, solutionTable);
+        if (script != null) {
+            ScriptRunner runner = new ScriptRunner(cp, new FileOutputStream(FileDescriptor.out), System.err,
+                    timingShown);
+            try (BufferedReader in = script.equals("-")
+                    ? new BufferedReader(new InputStreamReader(System.in))
+                    : Files.newBufferedReader(Path.of(script))) {
+                int failed = runner.run(in);
+                // The calc threads would keep the program running
+                System.exit(failed == 0 ? 0 : 1);
+            }
+        }
 
-        CommandParser cp = new CommandParser(new Config());
         BufferedReader br = new BufferedReader(new InputStreamReader(System.in));
 
         while (!Thread.currentThread().isInterrupted()) {
             System.out.print("$: ");
             String rawCommand = br.readLine();
-            if (rawCommand.isBlank()) continue;
-            if (rawCommand.equals("exit")) {
+            // End of the input, e.g. a pipe without exit
+            if (rawCommand == null || rawCommand.equals("exit")) {
                 System.exit(0);
             }
+            if (rawCommand.isBlank()) continue;
             try {
-                String commandWord = rawCommand;
-                String commandArgs = null;
-                if (rawCommand.contains(" ")) {
-                    commandWord = rawCommand.substring(0, rawCommand.indexOf(" "));
-                    commandArgs = rawCommand.substring(rawCommand.indexOf(" ") + 1);
-                }
-
-
-                Command command = cp.parseCommand(commandWord);
-                command.execute(commandArgs);
+                cp.execute(rawCommand);
             } catch (IllegalArgumentException e) {
                 System.err.println(e.getMessage());
             }
         }
     }
 
+    private static void runLoad(final int clients, final int requests, final int port)
+            throws IOException, InterruptedException {
+        if (port >= 0) {
+            new LoadGenerator(port, clients, requests).run();
+            return;
+        }
+        DiceServer server = new DiceServer(0);
+        server.bind();
+        Thread serverThread = new Thread(server::serve, "server");
+        serverThread.start();
+        try {
+            new LoadGenerator(server.getPort(), clients, requests).run();
+            System.out.printf("Calcs which got the result of an identical running one: %d%n",
+                    server.getSharedSearches());
+        } finally {
+            server.close();
+        }
+    }
 }
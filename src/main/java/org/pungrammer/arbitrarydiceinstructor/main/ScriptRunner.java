@@ -0,0 +1,84 @@
+package org.pungrammer.arbitrarydiceinstructor.main;
+
+import org.pungrammer.arbitrarydiceinstructor.command.CommandParser;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+// Runs the commands of a file or of piped input one line after another, without a prompt.
+// Scripts of thousands of setDice and calc lines are slowed down by the console more than by the searches,
+// so everything is written through one large buffer which is only flushed once the script is done.
+// Empty lines and lines starting with # are skipped, exit ends the script early.
+// Errors and the summary go to err, so the output only holds what the commands print, e.g. JSON Lines.
+public class ScriptRunner {
+
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 20;
+
+    private final CommandParser cp;
+    private final PrintStream out;
+    private final PrintStream err;
+
+    public ScriptRunner(final CommandParser cp, final OutputStream out, final PrintStream err,
+                        final boolean timingShown) {
+        this.cp = cp;
+        this.out = new PrintStream(new BufferedOutputStream(out, OUTPUT_BUFFER_SIZE), false);
+        this.err = err;
+        cp.setOutput(this.out);
+        cp.setTimingShown(timingShown);
+    }
+
+    // Returns the number of commands which failed
+    public int run(final BufferedReader in) throws IOException {
+        long start = System.nanoTime();
+        int lineNumber = 0;
+        int commands = 0;
+        int failed = 0;
+        int slowestLine = 0;
+        long slowestNanos = -1;
+        String rawCommand;
+        // The buffer is flushed even if reading the script fails, so the output of the lines before is kept
+        try {
+            while ((rawCommand = in.readLine()) != null) {
+                lineNumber++;
+                String command = rawCommand.strip();
+                if (command.isEmpty() || command.startsWith("#")) {
+                    continue;
+                }
+                if (command.equals("exit")) {
+                    break;
+                }
+                commands++;
+                long commandStart = System.nanoTime();
+                try {
+                    cp.execute(command);
+                } catch (IllegalArgumentException e) {
+                    failed++;
+                    // Errors are rare, so they are not buffered and show up even if the output goes to a file
+                    err.printf("Line %d (%s): %s%n", lineNumber, command, e.getMessage());
+                } catch (RuntimeException e) {
+                    // A bug in one command must not end the script and lose the output of the others
+                    failed++;
+                    err.printf("Line %d (%s): %s%n", lineNumber, command, e);
+                }
+                long nanos = System.nanoTime() - commandStart;
+                if (nanos > slowestNanos) {
+                    slowestNanos = nanos;
+                    slowestLine = lineNumber;
+                }
+            }
+        } finally {
+            out.flush();
+        }
+
+        long nanos = System.nanoTime() - start;
+        err.printf("%d commands in %dms, %.1f commands/s, %d failed%n", commands, nanos / 1_000_000,
+                nanos == 0 ? 0 : commands * 1e9 / nanos, failed);
+        if (commands > 0) {
+            err.printf("Slowest was line %d with %dms%n", slowestLine, slowestNanos / 1_000_000);
+        }
+        return failed;
+    }
+}
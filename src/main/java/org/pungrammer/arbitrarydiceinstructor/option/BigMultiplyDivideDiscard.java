@@ -0,0 +1,67 @@
+package org.pungrammer.arbitrarydiceinstructor.option;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.pungrammer.arbitrarydiceinstructor.dice.DiceRoll;
+
+import java.math.BigInteger;
+import java.util.List;
+
+// MultiplyDivideDiscard for wanted dice which do not fit into an int, the compound die may not even fit into a long.
+@Data
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class BigMultiplyDivideDiscard extends Option {
+    private int divideBy;
+    private BigInteger discardAbove;
+    private List<DiceRoll> requiredRolls;
+
+    @Override
+    public int isBetterThan(Option other) {
+        if (!(other instanceof BigMultiplyDivideDiscard)) {
+            throw new IllegalArgumentException("Wrong type");
+        }
+
+        BigMultiplyDivideDiscard castedOther = ((BigMultiplyDivideDiscard) other);
+        if (this.equals(castedOther)) {
+            return 0;
+        }
+
+        int score = compareExpectedThrows(castedOther);
+        if (score == 0) {
+            score = compareDice(this.requiredRolls, castedOther.requiredRolls);
+        }
+        return score;
+    }
+
+    @Override
+    public double getExpectedThrows() {
+        int rollCount = 0;
+        BigInteger simDieSides = BigInteger.ONE;
+        for (DiceRoll roll : this.requiredRolls) {
+            rollCount += roll.getNumberOfDice();
+            simDieSides = simDieSides.multiply(BigInteger.valueOf(roll.getDie().getSides())
+                    .pow(roll.getNumberOfDice()));
+        }
+
+        return calculateExpectedThrows(simDieSides, rollCount, this.discardAbove);
+    }
+
+    // Same as MultiplyDivideDiscard.calculateExpectedThrows(). Doubles reach far enough for any compound die
+    // which can be rolled.
+    public static double calculateExpectedThrows(BigInteger simulatedDie, int rollCount, BigInteger discardAbove) {
+        return Option.expectedThrows(rollCount, simulatedDie.doubleValue(), discardAbove.doubleValue());
+    }
+
+    @Override
+    public String getPrintableOption() {
+        return MultiplyDivideDiscard.getPrintableOption(requiredRolls, discardAbove, divideBy);
+    }
+
+    // The compound die does not fit into a long
+    @Override
+    public Recipe getRecipe() {
+        return null;
+    }
+}
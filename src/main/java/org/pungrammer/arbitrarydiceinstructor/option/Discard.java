@@ -0,0 +1,50 @@
+package org.pungrammer.arbitrarydiceinstructor.option;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.pungrammer.arbitrarydiceinstructor.dice.Die;
+
+@Data
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class Discard extends Option {
+
+    private Die die;
+    private int discardAbove;
+
+    @Override
+    public int isBetterThan(Option other) {
+        if (!(other instanceof Discard)) {
+            throw new IllegalArgumentException("Wrong type");
+        }
+
+        Discard castedOther = ((Discard) other);
+        if (this.equals(castedOther)) {
+            return 0;
+        }
+
+        // The larger the part of the die which is kept, the fewer rolls are discarded
+        int score = compareExpectedThrows(castedOther);
+        if (score == 0) {
+            score = Integer.compare(castedOther.die.getSides(), this.die.getSides());
+        }
+        return score;
+    }
+
+    @Override
+    public double getExpectedThrows() {
+        return expectedThrows(1, die.getSides(), discardAbove);
+    }
+
+    @Override
+    public String getPrintableOption() {
+        return String.format("Roll 1%s and discard any results above %d",
+                die.toString(), discardAbove);
+    }
+
+    @Override
+    public Recipe getRecipe() {
+        return new Recipe(new int[]{die.getSides()}, new long[]{1}, 0, discardAbove, 1);
+    }
+}
@@ -0,0 +1,77 @@
+package org.pungrammer.arbitrarydiceinstructor.option;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.pungrammer.arbitrarydiceinstructor.dice.DiceRoll;
+import org.pungrammer.arbitrarydiceinstructor.dice.Die;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Rolls a compound die which is a multiple of the wanted die, so no result is ever discarded.
+@Data
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class ExactProduct extends Option {
+    private int divideBy;
+    private List<DiceRoll> requiredRolls;
+
+    @Override
+    public int isBetterThan(Option other) {
+        if (!(other instanceof ExactProduct)) {
+            throw new IllegalArgumentException("Wrong type");
+        }
+
+        ExactProduct castedOther = ((ExactProduct) other);
+        if (this.equals(castedOther)) {
+            return 0;
+        }
+
+        int score = compareExpectedThrows(castedOther);
+        if (score == 0) {
+            score = compareDice(this.requiredRolls, castedOther.requiredRolls);
+        }
+        return score;
+    }
+
+    // Nothing is discarded, so every die is thrown exactly once
+    @Override
+    public double getExpectedThrows() {
+        return requiredRolls.stream().mapToInt(DiceRoll::getNumberOfDice).sum();
+    }
+
+    @Override
+    public String getPrintableOption() {
+        StringBuilder diceString = new StringBuilder();
+        List<Die> dice = new ArrayList<>();
+        for (int i = 0; i < requiredRolls.size(); i++) {
+            if (i == 0) {
+                diceString.append(requiredRolls.get(i).toString());
+            } else if (i == requiredRolls.size() - 1) {
+                diceString.append(String.format(" and %s", requiredRolls.get(i).toString()));
+            } else {
+                diceString.append(String.format(", %s", requiredRolls.get(i).toString()));
+            }
+            for (int j = 0; j < requiredRolls.get(i).getNumberOfDice(); j++) {
+                dice.add(requiredRolls.get(i).getDie());
+            }
+        }
+
+        String lastStep = divideBy == 1
+                ? "3) The result is your roll. No result is ever discarded."
+                : String.format("3) Divide the result by %d and round up to the next integer. " +
+                "No result is ever discarded.", divideBy);
+        return String.format("" +
+                        "1) Roll %s.\n" +
+                        "2) Then replace your roll results in this calculation. Order is the same as above.\n" +
+                        "%s\n" +
+                        "%s",
+                diceString.toString(), MultiplyDivideDiscard.getCalcInstruction(dice), lastStep);
+    }
+
+    @Override
+    public Recipe getRecipe() {
+        return Recipe.compound(requiredRolls, Long.MAX_VALUE, divideBy);
+    }
+}
@@ -0,0 +1,147 @@
+package org.pungrammer.arbitrarydiceinstructor.option;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.pungrammer.arbitrarydiceinstructor.dice.DiceRoll;
+import org.pungrammer.arbitrarydiceinstructor.dice.Die;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class MultiplyDivideDiscard extends Option {
+    private int divideBy;
+    private long discardAbove;
+    private List<DiceRoll> requiredRolls;
+
+    @Override
+    public int isBetterThan(Option other) {
+        if (!(other instanceof MultiplyDivideDiscard)) {
+            throw new IllegalArgumentException("Wrong type");
+        }
+
+        MultiplyDivideDiscard castedOther = ((MultiplyDivideDiscard) other);
+        if (this.equals(castedOther)) {
+            return 0;
+        }
+
+        int score = compareExpectedThrows(castedOther);
+        if (score == 0) {
+            score = compareDice(this.requiredRolls, castedOther.requiredRolls);
+        }
+        return score;
+    }
+
+    @Override
+    public double getExpectedThrows() {
+        int rollCount = 0;
+        long simDieSides = 1;
+        for (DiceRoll roll : this.requiredRolls) {
+            rollCount += roll.getNumberOfDice();
+            for (int i = 0; i < roll.getNumberOfDice(); i++) {
+                simDieSides *= roll.getDie().getSides();
+            }
+        }
+
+        return calculateExpectedThrows(simDieSides, rollCount, this.discardAbove);
+    }
+
+    // Same as getExpectedThrows(), the searches use it before they create an option
+    public static double calculateExpectedThrows(long simulatedDie, int rollCount, long discardAbove) {
+        return Option.expectedThrows(rollCount, simulatedDie, discardAbove);
+    }
+
+    // Fewest throws any option using this many dice or more can need on average, as all of them are thrown
+    // at least once. Holds for compound dice of any size, so it bounds options of all dice added on top as well.
+    public static double lowerThrowsBound(int rollCount) {
+        return rollCount;
+    }
+
+    public String getExample() {
+        return "Example: You wanted to get a d7.\n" +
+                "Your instructions said to roll 1d6 and 1d12.\n" +
+                "The solution slots are 10 wide and you need to discard all results above 70.\n" +
+                "Roll the dice. Assume the d6 shows 2 and the d12 shows 7.\n" +
+                "(2 - 1) * 12 + 7 = 19\n" +
+                "Since the solution slots are 10 wide, this result falls into slot number 2. This is your result.";
+    }
+
+    @Override
+    public String getPrintableOption() {
+        return getPrintableOption(requiredRolls, BigInteger.valueOf(discardAbove), divideBy);
+    }
+
+    // Shared with BigMultiplyDivideDiscard. The compound die may be far beyond 64 bits.
+    static String getPrintableOption(final List<DiceRoll> requiredRolls, final BigInteger discardAbove,
+                                     final int divideBy) {
+        StringBuilder diceString = new StringBuilder();
+        List<Die> dice = new ArrayList<>();
+        for (int i = 0; i < requiredRolls.size(); i++) {
+            if (i == 0) {
+                // First roll does not need joining
+                diceString.append(requiredRolls.get(i).toString());
+            } else if (i == requiredRolls.size() - 1) {
+                // Join last one with "and"
+                diceString.append(String.format(" and %s", requiredRolls.get(i).toString()));
+            } else {
+                diceString.append(String.format(", %s", requiredRolls.get(i).toString()));
+            }
+            for (int j = 0; j < requiredRolls.get(i).getNumberOfDice(); j++) {
+                dice.add(requiredRolls.get(i).getDie());
+            }
+        }
+
+        BigInteger simDieSides = BigInteger.ONE;
+        for (Die die : dice) {
+            simDieSides = simDieSides.multiply(BigInteger.valueOf(die.getSides()));
+        }
+
+        double discardProbability = 100 - (discardAbove.doubleValue() / simDieSides.doubleValue() * 100);
+        return String.format("" +
+                        "1) Roll %s.\n" +
+                        "2) Then replace your roll results in this calculation. Order is the same as above.\n" +
+                        "%s\n" +
+                        "3) Discard any result above %d (probability to discard: %f%%).\n" +
+                        "4) If not discarded, divide the result by %d and round up to the next integer.",
+                diceString.toString(), getCalcInstruction(dice),
+                discardAbove, discardProbability,
+                divideBy);
+    }
+
+    // Every single die gets its own roll, even if a roll contains several dice of the same kind.
+    // The dice are the digits of the compound die, the first one is the most significant. All but the last roll
+    // start counting at 0, so every result from 1 to the compound die appears exactly once.
+    // Shared with ExactProduct, Recipe.compound() does the same calculation.
+    static String getCalcInstruction(final List<Die> dice) {
+        BigInteger[] placeValues = new BigInteger[dice.size()];
+        BigInteger placeValue = BigInteger.ONE;
+        for (int i = dice.size() - 1; i >= 0; i--) {
+            placeValues[i] = placeValue;
+            placeValue = placeValue.multiply(BigInteger.valueOf(dice.get(i).getSides()));
+        }
+
+        StringBuilder calcInstruction = new StringBuilder();
+        for (int i = 0; i < dice.size(); i++) {
+            if (i > 0) {
+                // First roll does not need the leading +
+                calcInstruction.append(" + ");
+            }
+            if (i < dice.size() - 1) {
+                calcInstruction.append(String.format("(roll%d - 1) * %s", i + 1, placeValues[i]));
+            } else {
+                // Last roll should not be multiplied
+                calcInstruction.append("roll").append(i + 1);
+            }
+        }
+        return calcInstruction.toString();
+    }
+
+    @Override
+    public Recipe getRecipe() {
+        return Recipe.compound(requiredRolls, discardAbove, divideBy);
+    }
+}
@@ -0,0 +1,67 @@
+package org.pungrammer.arbitrarydiceinstructor.option;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.pungrammer.arbitrarydiceinstructor.dice.DiceRoll;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@EqualsAndHashCode
+public abstract class Option {
+    // Returns a score.
+    // Positive numbers mean this is better than other.
+    // 0 means they are equal.
+    // Negative numbers mean this is worse the other.
+    // Options of one type are totally ordered, so the best of several options does not depend on their order.
+    public abstract int isBetterThan(Option other);
+
+    // Average number of dice thrown until the instructions give a result, the rerolls after discards included.
+    // Lower is better. Uniform options of all types are ranked by it first.
+    public abstract double getExpectedThrows();
+
+    public abstract String getPrintableOption();
+
+    // What the printed instructions do, so they can be simulated. Null if the dice are too large for that.
+    public abstract Recipe getRecipe();
+
+    // Whether every side of the wanted die comes up equally often
+    public boolean isUniform() {
+        return true;
+    }
+
+    // Every attempt throws all dice and is kept with the probability kept / compoundDie.
+    // Attempts are repeated until one is kept, so with p being the discard probability the dice are thrown
+    // diceCount * (1 + p + p^2 + ...) = diceCount * compoundDie / kept times on average.
+    public static double expectedThrows(final int diceCount, final double compoundDie, final double kept) {
+        return diceCount * compoundDie / kept;
+    }
+
+    // Positive if this option needs fewer throws on average than other, which may be of any type
+    public int compareExpectedThrows(final Option other) {
+        return Double.compare(other.getExpectedThrows(), this.getExpectedThrows());
+    }
+
+    // Tie breaker for options which cost the same. Positive if these dice are better.
+    // The dice come first which the walks of the search visit first: compared die by die ascending,
+    // and fewer dice before more dice starting with the same ones.
+    protected static int compareDice(final List<DiceRoll> these, final List<DiceRoll> others) {
+        int[] theseSides = sortedSides(these);
+        int[] otherSides = sortedSides(others);
+        return Arrays.compare(otherSides, theseSides);
+    }
+
+    private static int[] sortedSides(final List<DiceRoll> rolls) {
+        int[] sides = new int[rolls.stream().mapToInt(DiceRoll::getNumberOfDice).sum()];
+        int next = 0;
+        for (DiceRoll roll : rolls) {
+            Arrays.fill(sides, next, next + roll.getNumberOfDice(), roll.getDie().getSides());
+            next += roll.getNumberOfDice();
+        }
+        Arrays.sort(sides);
+        return sides;
+    }
+}
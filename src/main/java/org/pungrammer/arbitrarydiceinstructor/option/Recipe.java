@@ -0,0 +1,98 @@
+package org.pungrammer.arbitrarydiceinstructor.option;
+
+import lombok.Data;
+import org.pungrammer.arbitrarydiceinstructor.dice.DiceRoll;
+
+import java.util.Arrays;
+import java.util.List;
+
+// What the printed instructions of an option ask for, in a form which can be simulated:
+// roll all dice, add up every roll times its factor plus the offset, discard results above discardAbove and
+// divide the rest by divideBy, rounding up.
+// A discarded result may be recycled: the part above the kept results is the upper digit of one more die.
+// Every recycling stage keeps the results up to its own multiple of the wanted die.
+@Data
+public class Recipe {
+    // Sides of every single die in the order of the instructions
+    private final int[] dice;
+    private final long[] factors;
+    private final long offset;
+    // Long.MAX_VALUE if nothing is discarded
+    private final long discardAbove;
+    private final int divideBy;
+    // Empty if discarded results start over right away
+    private final int[] recyclingDice;
+    private final long[] recyclingKeep;
+
+    public Recipe(final int[] dice, final long[] factors, final long offset, final long discardAbove,
+                  final int divideBy) {
+        this(dice, factors, offset, discardAbove, divideBy, new int[0], new long[0]);
+    }
+
+    public Recipe(final int[] dice, final long[] factors, final long offset, final long discardAbove,
+                  final int divideBy, final int[] recyclingDice, final long[] recyclingKeep) {
+        this.dice = dice;
+        this.factors = factors;
+        this.offset = offset;
+        this.discardAbove = discardAbove;
+        this.divideBy = divideBy;
+        this.recyclingDice = recyclingDice;
+        this.recyclingKeep = recyclingKeep;
+    }
+
+    // The dice are the digits of a compound die, the first one is the most significant.
+    // Same calculation as MultiplyDivideDiscard.getCalcInstruction() prints.
+    static Recipe compound(final List<DiceRoll> requiredRolls, final long discardAbove, final int divideBy) {
+        int[] dice = new int[requiredRolls.stream().mapToInt(DiceRoll::getNumberOfDice).sum()];
+        int next = 0;
+        for (DiceRoll roll : requiredRolls) {
+            Arrays.fill(dice, next, next + roll.getNumberOfDice(), roll.getDie().getSides());
+            next += roll.getNumberOfDice();
+        }
+        long[] factors = new long[dice.length];
+        long offset = 0;
+        long placeValue = 1;
+        for (int i = dice.length - 1; i >= 0; i--) {
+            factors[i] = placeValue;
+            // All but the last roll start counting at 0
+            if (i < dice.length - 1) {
+                offset -= placeValue;
+            }
+            placeValue *= dice[i];
+        }
+        return new Recipe(dice, factors, offset, discardAbove, divideBy);
+    }
+
+    // Same calculation as RecyclingDiscard.getPrintableOption() prints
+    static Recipe recycling(final List<DiceRoll> requiredRolls, final long discardAbove, final int divideBy,
+                            final int[] recyclingDice, final long[] recyclingKeep) {
+        Recipe compound = compound(requiredRolls, discardAbove, divideBy);
+        return new Recipe(compound.dice, compound.factors, compound.offset, discardAbove, divideBy, recyclingDice,
+                recyclingKeep);
+    }
+
+    // Size of the compound die all dice together roll
+    public double getCompoundDie() {
+        double compoundDie = 1;
+        for (int die : dice) {
+            compoundDie *= die;
+        }
+        return compoundDie;
+    }
+
+    // The probability to discard a result the instructions print. With recycling the probability that all stages
+    // discard and the instructions start over.
+    public double getDiscardProbability() {
+        if (discardAbove == Long.MAX_VALUE) {
+            return 0;
+        }
+        double probability = Math.max(0, 1 - discardAbove / getCompoundDie());
+        long leftover = (long) getCompoundDie() - discardAbove;
+        for (int i = 0; i < recyclingDice.length; i++) {
+            long stageDie = leftover * recyclingDice[i];
+            leftover = stageDie - recyclingKeep[i];
+            probability *= ((double) leftover) / stageDie;
+        }
+        return probability;
+    }
+}
@@ -0,0 +1,181 @@
+package org.pungrammer.arbitrarydiceinstructor.option;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.pungrammer.arbitrarydiceinstructor.dice.DiceRoll;
+import org.pungrammer.arbitrarydiceinstructor.dice.Die;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Rolls a compound die and keeps the results up to discardAbove like MultiplyDivideDiscard, but does not throw a
+// discarded result away. What is left above discardAbove is still a uniform number, so it becomes the upper digit
+// of the next attempt and only one more die is rolled for it. Starts over once all recycling dice are used up.
+@Data
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class RecyclingDiscard extends Option {
+    private int divideBy;
+    private long discardAbove;
+    private List<DiceRoll> requiredRolls;
+    // One die for every recycling stage, in the order they are rolled
+    private List<Die> recyclingDice;
+
+    @Override
+    public int isBetterThan(Option other) {
+        if (!(other instanceof RecyclingDiscard)) {
+            throw new IllegalArgumentException("Wrong type");
+        }
+
+        RecyclingDiscard castedOther = ((RecyclingDiscard) other);
+        if (this.equals(castedOther)) {
+            return 0;
+        }
+
+        int score = compareExpectedThrows(castedOther);
+        if (score == 0) {
+            score = compareDice(this.requiredRolls, castedOther.requiredRolls);
+        }
+        if (score == 0) {
+            // The recycling dice are rolled in order, so they are not sorted
+            score = Arrays.compare(castedOther.getRecyclingSides(), this.getRecyclingSides());
+        }
+        return score;
+    }
+
+    @Override
+    public double getExpectedThrows() {
+        int[] recyclingSides = getRecyclingSides();
+        return calculateExpectedThrows(getWantedDie(), getSimulatedDie(), getRollCount(), recyclingSides,
+                recyclingSides.length);
+    }
+
+    // Throws of the same compound die if every discarded result started over
+    public double getExpectedThrowsWithoutRecycling() {
+        return expectedThrows(getRollCount(), getSimulatedDie(), discardAbove);
+    }
+
+    // Expected throws of a compound die followed by the first stageCount recycling dice.
+    // Every stage is reached with the probability that all attempts before it were discarded and throws one die.
+    // Once the last stage discards, everything starts over:
+    // (rollCount + p1 + p1 * p2 + ...) / (1 - p1 * p2 * ...)
+    public static double calculateExpectedThrows(final int wantedDie, final long simulatedDie, final int rollCount,
+                                                 final int[] recyclingSides, final int stageCount) {
+        long leftover = simulatedDie - keep(wantedDie, simulatedDie);
+        double throwsPerAttempt = rollCount;
+        double discardProbability = ((double) leftover) / simulatedDie;
+        for (int i = 0; i < stageCount; i++) {
+            throwsPerAttempt += discardProbability;
+            long stageDie = leftover * recyclingSides[i];
+            leftover = stageDie - keep(wantedDie, stageDie);
+            discardProbability *= ((double) leftover) / stageDie;
+        }
+        return throwsPerAttempt / (1 - discardProbability);
+    }
+
+    // Largest result an attempt with this many possible results keeps, a multiple of the wanted die
+    public static long keep(final int wantedDie, final long possibleResults) {
+        return possibleResults / wantedDie * wantedDie;
+    }
+
+    // Probability that all stages discard and the instructions start over
+    public double getStartOverProbability() {
+        long leftover = getSimulatedDie() - discardAbove;
+        double probability = ((double) leftover) / getSimulatedDie();
+        for (Die die : recyclingDice) {
+            long stageDie = leftover * die.getSides();
+            leftover = stageDie - keep(getWantedDie(), stageDie);
+            probability *= ((double) leftover) / stageDie;
+        }
+        return probability;
+    }
+
+    @Override
+    public String getPrintableOption() {
+        StringBuilder diceString = new StringBuilder();
+        List<Die> dice = new ArrayList<>();
+        for (int i = 0; i < requiredRolls.size(); i++) {
+            if (i == 0) {
+                diceString.append(requiredRolls.get(i).toString());
+            } else if (i == requiredRolls.size() - 1) {
+                diceString.append(String.format(" and %s", requiredRolls.get(i).toString()));
+            } else {
+                diceString.append(String.format(", %s", requiredRolls.get(i).toString()));
+            }
+            for (int j = 0; j < requiredRolls.get(i).getNumberOfDice(); j++) {
+                dice.add(requiredRolls.get(i).getDie());
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        int step = 1;
+        sb.append(String.format("%d) Roll %s.%n", step++, diceString));
+        if (dice.size() > 1) {
+            sb.append(String.format("%d) Then replace your roll results in this calculation. " +
+                    "Order is the same as above.%n", step++));
+            sb.append(MultiplyDivideDiscard.getCalcInstruction(dice)).append("\n");
+        }
+        sb.append(String.format("%d) %s%n", step++, keepInstruction("the result", discardAbove)));
+
+        long leftover = getSimulatedDie() - discardAbove;
+        long stageKeep = discardAbove;
+        for (Die die : recyclingDice) {
+            long stageDie = leftover * die.getSides();
+            sb.append(String.format("%d) Otherwise subtract %d from it and roll 1%s. " +
+                            "Calculate (remainder - 1) * %d + roll.%n",
+                    step++, stageKeep, die, die.getSides()));
+            stageKeep = keep(getWantedDie(), stageDie);
+            leftover = stageDie - stageKeep;
+            sb.append(String.format("%d) %s%n", step++, keepInstruction("this", stageKeep)));
+        }
+        sb.append(String.format("%d) Otherwise start over with step 1 (probability to start over: %f%%).",
+                step, getStartOverProbability() * 100));
+        return sb.toString();
+    }
+
+    private String keepInstruction(final String value, final long keep) {
+        long stageDivideBy = keep / getWantedDie();
+        if (stageDivideBy == 1) {
+            return String.format("If %s is at most %d, it is your result.", value, keep);
+        }
+        return String.format("If %s is at most %d, divide it by %d and round up to the next integer. " +
+                "This is your result.", value, keep, stageDivideBy);
+    }
+
+    @Override
+    public Recipe getRecipe() {
+        int[] recyclingSides = getRecyclingSides();
+        long[] recyclingKeep = new long[recyclingSides.length];
+        long leftover = getSimulatedDie() - discardAbove;
+        for (int i = 0; i < recyclingSides.length; i++) {
+            long stageDie = leftover * recyclingSides[i];
+            recyclingKeep[i] = keep(getWantedDie(), stageDie);
+            leftover = stageDie - recyclingKeep[i];
+        }
+        return Recipe.recycling(requiredRolls, discardAbove, divideBy, recyclingSides, recyclingKeep);
+    }
+
+    private int getWantedDie() {
+        return (int) (discardAbove / divideBy);
+    }
+
+    private long getSimulatedDie() {
+        long simDieSides = 1;
+        for (DiceRoll roll : requiredRolls) {
+            for (int i = 0; i < roll.getNumberOfDice(); i++) {
+                simDieSides *= roll.getDie().getSides();
+            }
+        }
+        return simDieSides;
+    }
+
+    private int getRollCount() {
+        return requiredRolls.stream().mapToInt(DiceRoll::getNumberOfDice).sum();
+    }
+
+    private int[] getRecyclingSides() {
+        return recyclingDice.stream().mapToInt(Die::getSides).toArray();
+    }
+}
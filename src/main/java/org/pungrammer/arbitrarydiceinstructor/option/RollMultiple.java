@@ -0,0 +1,62 @@
+package org.pungrammer.arbitrarydiceinstructor.option;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.pungrammer.arbitrarydiceinstructor.dice.DiceRoll;
+
+import java.util.Arrays;
+
+@Data
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class RollMultiple extends Option {
+
+    private DiceRoll roll;
+
+    @Override
+    public int isBetterThan(Option other) {
+        if (!(other instanceof RollMultiple)) {
+            throw new IllegalArgumentException("Wrong type");
+        }
+
+        RollMultiple castedOther = ((RollMultiple) other);
+        if (this.equals(castedOther)) {
+            return 0;
+        }
+
+        // Fewer dice to roll and add up are better
+        int score = compareExpectedThrows(castedOther);
+        if (score == 0) {
+            score = Integer.compare(castedOther.roll.getDie().getSides(), this.roll.getDie().getSides());
+        }
+        return score;
+    }
+
+    // Nothing is discarded
+    @Override
+    public double getExpectedThrows() {
+        return roll.getNumberOfDice();
+    }
+
+    @Override
+    public String getPrintableOption() {
+        return String.format("Roll %s", roll.toString());
+    }
+
+    // Adding up several dice makes the middle results more likely and 1 impossible
+    @Override
+    public boolean isUniform() {
+        return roll.getNumberOfDice() == 1;
+    }
+
+    // The rolls are added up
+    @Override
+    public Recipe getRecipe() {
+        int[] dice = new int[roll.getNumberOfDice()];
+        long[] factors = new long[roll.getNumberOfDice()];
+        Arrays.fill(dice, roll.getDie().getSides());
+        Arrays.fill(factors, 1);
+        return new Recipe(dice, factors, 0, Long.MAX_VALUE, 1);
+    }
+}
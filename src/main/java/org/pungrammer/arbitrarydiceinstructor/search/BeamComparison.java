@@ -0,0 +1,24 @@
+package org.pungrammer.arbitrarydiceinstructor.search;
+
+import lombok.Data;
+import org.pungrammer.arbitrarydiceinstructor.option.MultiplyDivideDiscard;
+
+// The MultiplyDivideDiscard of the beam search and of the exhaustive bounded search for one wanted die
+@Data
+public class BeamComparison {
+    private int wantedDie;
+    // Null if there is none
+    private MultiplyDivideDiscard beamOption;
+    private MultiplyDivideDiscard exhaustiveOption;
+    private long beamNanos;
+    private long exhaustiveNanos;
+
+    // Throws the beam needs more than the best option, 0 if it found the best one, infinite if it found none
+    public double getGap() {
+        return DiceSearch.throwsGap(beamOption, exhaustiveOption);
+    }
+
+    public boolean isBestFound() {
+        return getGap() == 0;
+    }
+}
@@ -0,0 +1,144 @@
+package org.pungrammer.arbitrarydiceinstructor.search;
+
+import org.pungrammer.arbitrarydiceinstructor.config.ConfigSnapshot;
+import org.pungrammer.arbitrarydiceinstructor.option.MultiplyDivideDiscard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Finds a MultiplyDivideDiscard for dice too large to walk all combinations, e.g. a d1000000 or max roll counts
+// above 5. Grows compound dice one die at a time like the walks, but only the beam width most promising compound
+// dice of every roll count are grown further. Every compound die the beam reaches is scored, so the result is
+// the best option among them, which is not necessarily the best of all.
+// A compound die is promising if it or one more die on top of it gives a cheap option: close below a multiple
+// of the wanted die, so little is discarded. Compound dice which are still too small for that are ranked by size,
+// the larger ones need fewer dice to get there.
+// With a beam wider than the number of multisets the result is the same as the one of the bounded search.
+final class BeamSearch {
+
+    private BeamSearch() {
+    }
+
+    private static class CompoundDie {
+        private final long product;
+        // Ascending, so compound dice of the same dice look the same
+        private final int[] dieIndizes;
+        // Expected throws of the cheapest option with at most one more die, infinite if there is none
+        private double promise = Double.POSITIVE_INFINITY;
+
+        CompoundDie(final long product, final int[] dieIndizes) {
+            this.product = product;
+            this.dieIndizes = dieIndizes;
+        }
+
+        CompoundDie add(final int dieIndex, final long nextProduct) {
+            int[] nextDieIndizes = Arrays.copyOf(dieIndizes, dieIndizes.length + 1);
+            int position = dieIndizes.length;
+            while (position > 0 && nextDieIndizes[position - 1] > dieIndex) {
+                nextDieIndizes[position] = nextDieIndizes[position - 1];
+                position--;
+            }
+            nextDieIndizes[position] = dieIndex;
+            return new CompoundDie(nextProduct, nextDieIndizes);
+        }
+    }
+
+    // The most promising first. Of equally promising ones the larger compound die, then the smaller dice
+    // like Option.compareDice(), so the beam does not depend on the order the dice were added in.
+    private static final Comparator<CompoundDie> MOST_PROMISING = Comparator
+            .<CompoundDie>comparingDouble(compoundDie -> compoundDie.promise)
+            .thenComparing(Comparator.<CompoundDie>comparingLong(compoundDie -> compoundDie.product).reversed())
+            .thenComparing((first, second) -> Arrays.compare(first.dieIndizes, second.dieIndizes));
+
+    // Returns null if none of the compound dice the beam reached is usable
+    static MultiplyDivideDiscard find(final int wantedDie, final ConfigSnapshot snapshot,
+                                      final SearchCounters counters, final SearchProgress progress) {
+        int[] sides = snapshot.getSides();
+        int maxRollCount = snapshot.getMaxRollCount();
+        long largestUsefulDie = DiceSearch.largestUsefulDie(wantedDie, snapshot.getProductCeiling());
+        // Every roll count is one step
+        progress.start(maxRollCount);
+
+        CompoundDie best = null;
+        long bestDiscardAbove = -1;
+        double bestThrows = Double.POSITIVE_INFINITY;
+        List<CompoundDie> beam = List.of(new CompoundDie(1, new int[0]));
+        for (int rollCount = 1; rollCount <= maxRollCount && !beam.isEmpty(); rollCount++) {
+            // Every option of this many dice discards something, so it needs more throws than this
+            if (progress.isStopped() || MultiplyDivideDiscard.lowerThrowsBound(rollCount) >= bestThrows) {
+                break;
+            }
+
+            // The same product of other dice gives the same options, only the smaller dice are kept
+            Map<Long, CompoundDie> grown = new HashMap<>();
+            for (CompoundDie compoundDie : beam) {
+                // Dice are sorted ascending, so once a die is too large all following dice are too large as well
+                for (int i = 0; i < sides.length; i++) {
+                    long nextProduct = DiceSearch.multiply(compoundDie.product, sides[i]);
+                    if (nextProduct > largestUsefulDie) {
+                        break;
+                    }
+                    counters.tuples++;
+                    CompoundDie next = compoundDie.add(i, nextProduct);
+                    grown.merge(nextProduct, next,
+                            (kept, added) -> Arrays.compare(kept.dieIndizes, added.dieIndizes) <= 0 ? kept : added);
+                }
+            }
+
+            List<CompoundDie> growable = new ArrayList<>();
+            for (CompoundDie compoundDie : grown.values()) {
+                long discardAbove = DiceSearch.discardAbove(wantedDie, compoundDie.product, rollCount);
+                counters.count(discardAbove);
+                if (discardAbove >= 0) {
+                    double expectedThrows = MultiplyDivideDiscard.calculateExpectedThrows(compoundDie.product,
+                            rollCount, discardAbove);
+                    if (best == null || expectedThrows < bestThrows || (expectedThrows == bestThrows
+                            && Arrays.compare(compoundDie.dieIndizes, best.dieIndizes) < 0)) {
+                        best = compoundDie;
+                        bestDiscardAbove = discardAbove;
+                        bestThrows = expectedThrows;
+                    }
+                    compoundDie.promise = expectedThrows;
+                }
+                if (rollCount < maxRollCount
+                        && DiceSearch.multiply(compoundDie.product, sides[0]) <= largestUsefulDie) {
+                    compoundDie.promise = Math.min(compoundDie.promise,
+                            cheapestNextThrows(wantedDie, sides, compoundDie.product, rollCount + 1,
+                                    largestUsefulDie));
+                    growable.add(compoundDie);
+                }
+            }
+
+            growable.sort(MOST_PROMISING);
+            beam = growable.subList(0, Math.min(snapshot.getBeamWidth(), growable.size()));
+            progress.cover(1);
+        }
+
+        if (best == null) {
+            return null;
+        }
+        return DiceSearch.createOption(wantedDie, sides, best.dieIndizes, bestDiscardAbove);
+    }
+
+    // Expected throws of the cheapest option of this compound die and one more die
+    private static double cheapestNextThrows(final int wantedDie, final int[] sides, final long product,
+                                             final int rollCount, final long largestUsefulDie) {
+        double cheapest = Double.POSITIVE_INFINITY;
+        for (int side : sides) {
+            long nextProduct = DiceSearch.multiply(product, side);
+            if (nextProduct > largestUsefulDie) {
+                break;
+            }
+            long discardAbove = DiceSearch.discardAbove(wantedDie, nextProduct, rollCount);
+            if (discardAbove >= 0) {
+                cheapest = Math.min(cheapest,
+                        MultiplyDivideDiscard.calculateExpectedThrows(nextProduct, rollCount, discardAbove));
+            }
+        }
+        return cheapest;
+    }
+}
@@ -0,0 +1,153 @@
+package org.pungrammer.arbitrarydiceinstructor.search;
+
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.config.ConfigSnapshot;
+import org.pungrammer.arbitrarydiceinstructor.option.BigMultiplyDivideDiscard;
+import org.pungrammer.arbitrarydiceinstructor.option.MultiplyDivideDiscard;
+import org.pungrammer.arbitrarydiceinstructor.stats.Statistics;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+// Search for wanted dice beyond the int range of DiceSearch. Compound dice are kept as BigInteger,
+// so neither the wanted die nor the compound dice are limited to 64 bits.
+// Walks the multisets like the bounded search of DiceSearch, on a single thread.
+// No single die reaches such a wanted die and rolling it as a multiple of one die would take more dice than
+// fit into an int, so only MultiplyDivideDiscard options are found.
+// The product ceiling of the config only limits the long arithmetic of DiceSearch, it does not apply here.
+public class BigDiceSearch {
+
+    private static final BigInteger THREE = BigInteger.valueOf(3);
+    private static final BigInteger TEN = BigInteger.TEN;
+    private static final BigInteger ELEVEN = BigInteger.valueOf(11);
+
+    private final Config config;
+    private final Statistics statistics;
+
+    public BigDiceSearch(final Config config, final Statistics statistics) {
+        this.config = config;
+        this.statistics = statistics;
+    }
+
+    // Returns null if no compound die can be used. Stops early once the progress is stopped.
+    public BigMultiplyDivideDiscard search(final BigInteger wantedDie, final SearchProgress progress) {
+        ConfigSnapshot snapshot = config.getSnapshot();
+        int[] sides = snapshot.getSides();
+        int maxDieCount = snapshot.getMaxRollCount();
+
+        Walk walk = new Walk(wantedDie, sides, maxDieCount, progress);
+        if (maxDieCount > 1) {
+            progress.start(SearchProgress.multisetCount(sides.length, maxDieCount));
+            walk.expand(maxDieCount - 1, 0, BigInteger.ONE);
+        }
+        if (!progress.isStopped()) {
+            progress.complete();
+        }
+
+        BigMultiplyDivideDiscard best = null;
+        if (walk.bestDiscardAbove != null) {
+            best = new BigMultiplyDivideDiscard(walk.bestDiscardAbove.divide(wantedDie).intValueExact(),
+                    walk.bestDiscardAbove, DiceSearch.requiredRolls(sides, walk.bestDieIndizes));
+            walk.counters.countOption(best);
+        }
+        statistics.recordSearch(walk.counters);
+        return best;
+    }
+
+    // Same rules as DiceSearch.discardAbove(). Returns null if this compound die does not produce an option.
+    static BigInteger discardAbove(final BigInteger wantedDie, final BigInteger simulatedDie, final int rollCount,
+                                   final SearchCounters counters) {
+        if (simulatedDie.compareTo(wantedDie) <= 0) {
+            counters.rejectedTooSmall++;
+            return null;
+        }
+        // Largest multiple of the wanted die below the compound die
+        BigInteger multiplications = simulatedDie.subtract(BigInteger.ONE).divide(wantedDie);
+        BigInteger discardAbove = multiplications.multiply(wantedDie);
+
+        if (simulatedDie.divide(THREE).compareTo(discardAbove) > 0) {
+            counters.rejectedDiscardTooLarge++;
+            return null;
+        }
+        if (multiplications.compareTo(TEN) > 0) {
+            counters.rejectedDivideTooLarge++;
+            return null;
+        }
+        if (rollCount < 2) {
+            counters.rejectedSingleDie++;
+            return null;
+        }
+        counters.scored++;
+        return discardAbove;
+    }
+
+    private static class Walk {
+        private final BigInteger wantedDie;
+        private final BigInteger[] sides;
+        private final int[] dieIndizes;
+        // discardAbove() never accepts a compound die which needs to be divided by more than 10
+        private final BigInteger largestUsefulDie;
+        private final SearchProgress progress;
+        private final SearchCounters counters = new SearchCounters();
+        private final int[] bestDieIndizes;
+        private BigInteger bestDiscardAbove;
+        private double bestScore = Double.POSITIVE_INFINITY;
+
+        Walk(final BigInteger wantedDie, final int[] sides, final int maxDieCount, final SearchProgress progress) {
+            this.wantedDie = wantedDie;
+            this.sides = Arrays.stream(sides).mapToObj(BigInteger::valueOf).toArray(BigInteger[]::new);
+            this.dieIndizes = new int[maxDieCount];
+            this.bestDieIndizes = new int[maxDieCount];
+            Arrays.fill(dieIndizes, -1);
+            this.largestUsefulDie = wantedDie.multiply(ELEVEN);
+            this.progress = progress;
+        }
+
+        // Same walk as DiceSearch.expandBounded()
+        void expand(final int position, final int lowestIndex, final BigInteger simulatedDie) {
+            int rollCount = dieIndizes.length - position;
+            // Dice are sorted ascending, so once a die is too large all following dice are too large as well.
+            for (int i = lowestIndex; i < sides.length; i++) {
+                if (progress.isStopped()) {
+                    break;
+                }
+                BigInteger nextSimulatedDie = simulatedDie.multiply(sides[i]);
+                if (nextSimulatedDie.compareTo(largestUsefulDie) > 0 || canNotWin(rollCount)) {
+                    if (rollCount <= 2) {
+                        progress.coverRemainingDice(sides.length, position, i);
+                    }
+                    break;
+                }
+                dieIndizes[position] = i;
+                counters.tuples++;
+
+                BigInteger discardAbove = discardAbove(wantedDie, nextSimulatedDie, rollCount, counters);
+                if (discardAbove != null) {
+                    double score = BigMultiplyDivideDiscard.calculateExpectedThrows(nextSimulatedDie, rollCount,
+                            discardAbove);
+                    if (score < bestScore) {
+                        System.arraycopy(dieIndizes, 0, bestDieIndizes, 0, dieIndizes.length);
+                        bestDiscardAbove = discardAbove;
+                        bestScore = score;
+                    }
+                }
+
+                BigInteger smallestNextDie = nextSimulatedDie.multiply(sides[i]);
+                boolean grow = position > 0
+                        && smallestNextDie.compareTo(largestUsefulDie) <= 0
+                        && !canNotWin(rollCount + 1);
+                if (grow) {
+                    expand(position - 1, i, nextSimulatedDie);
+                }
+                if (rollCount <= 2) {
+                    progress.coverDie(sides.length, position, i, grow && rollCount == 1);
+                }
+            }
+            dieIndizes[position] = -1;
+        }
+
+        private boolean canNotWin(final int rollCount) {
+            return MultiplyDivideDiscard.lowerThrowsBound(rollCount) >= bestScore;
+        }
+    }
+}
@@ -0,0 +1,1137 @@
+package org.pungrammer.arbitrarydiceinstructor.search;
+
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.config.ConfigSnapshot;
+import org.pungrammer.arbitrarydiceinstructor.config.EnumerationMode;
+import org.pungrammer.arbitrarydiceinstructor.dice.DiceRoll;
+import org.pungrammer.arbitrarydiceinstructor.dice.Die;
+import org.pungrammer.arbitrarydiceinstructor.option.Discard;
+import org.pungrammer.arbitrarydiceinstructor.option.ExactProduct;
+import org.pungrammer.arbitrarydiceinstructor.option.MultiplyDivideDiscard;
+import org.pungrammer.arbitrarydiceinstructor.option.Option;
+import org.pungrammer.arbitrarydiceinstructor.option.RecyclingDiscard;
+import org.pungrammer.arbitrarydiceinstructor.option.RollMultiple;
+import org.pungrammer.arbitrarydiceinstructor.stats.Statistics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+public class DiceSearch {
+
+    // Number of dice for which the parallel search forks one task per die.
+    // Everything below is walked sequentially by the worker that owns the prefix.
+    private static final int FORK_DEPTH = 2;
+    // Number of permutations after which the odometer reports its progress, a power of two
+    private static final int PROGRESS_INTERVAL = 1024;
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    // Returned by discardAbove() for compound dice which do not produce an option, one value for every rule
+    static final long REJECTED_TOO_SMALL = -1;
+    static final long REJECTED_DISCARD_TOO_LARGE = -2;
+    static final long REJECTED_DIVIDE_TOO_LARGE = -3;
+    static final long REJECTED_SINGLE_DIE = -4;
+
+    private final Config config;
+    private final ProductIndex productIndex;
+    private final Statistics statistics;
+
+    private ForkJoinPool pool;
+
+    public DiceSearch(final Config config, final ProductIndex productIndex) {
+        this(config, productIndex, new Statistics());
+    }
+
+    public DiceSearch(final Config config, final ProductIndex productIndex, final Statistics statistics) {
+        this.config = config;
+        this.productIndex = productIndex;
+        this.statistics = statistics;
+    }
+
+    public SearchResult search(final int wantedDie) {
+        return search(wantedDie, new SearchProgress());
+    }
+
+    public SearchResult search(final int wantedDie, final SearchProgress progress) {
+        return search(config.getSnapshot(), wantedDie, progress);
+    }
+
+    // Uses the given snapshot of the config for the whole search, changes of the config do not affect it.
+    // Stops early once the progress is stopped. The result is then marked as not exhaustive.
+    public SearchResult search(final ConfigSnapshot snapshot, final int wantedDie, final SearchProgress progress) {
+        long start = System.nanoTime();
+        LongAdder workNanos = new LongAdder();
+        int threadCount = snapshot.getEnumerationMode() == EnumerationMode.ODOMETER ? 1 : snapshot.getThreadCount();
+        int[] sides = snapshot.getSides();
+
+        SearchCounters counters = new SearchCounters();
+        SearchResult result = createSingleDieResult(wantedDie, sides, counters);
+        ExactProduct exact = DivisorSearch.find(wantedDie, snapshot, counters);
+        if (exact != null) {
+            result.offer(exact);
+        }
+        offerRecycling(wantedDie, snapshot, counters, progress, result);
+
+        // Compound dice need at least two dice
+        if (snapshot.getMaxRollCount() > 1 && compoundDiceCanWin(wantedDie, exact)) {
+            // Start with the smallest die and expand it. If it does not result in anything try lager dies.
+            // If there is still no result, add another die and repeat.
+            MultiplyDivideDiscard best;
+            if (snapshot.getEnumerationMode() == EnumerationMode.ODOMETER) {
+                expandDie(wantedDie, snapshot, counters, progress, result::offer);
+                best = null;
+            } else if (snapshot.getEnumerationMode() == EnumerationMode.MULTISET) {
+                best = expandDieMultisets(wantedDie, snapshot, threadCount, workNanos, counters, progress);
+            } else if (snapshot.getEnumerationMode() == EnumerationMode.INDEXED
+                    && productIndex.covers(snapshot, wantedDie)) {
+                threadCount = 1;
+                best = productIndex.find(snapshot, wantedDie, counters);
+            } else if (snapshot.getEnumerationMode() == EnumerationMode.BEAM) {
+                threadCount = 1;
+                best = BeamSearch.find(wantedDie, snapshot, counters, progress);
+                // The index answers in no time, so the beam is compared for every die it covers
+                if (productIndex.covers(snapshot, wantedDie)) {
+                    result.setBeamGap(throwsGap(best, productIndex.find(snapshot, wantedDie, new SearchCounters())));
+                }
+            } else {
+                best = expandDieBounded(wantedDie, snapshot, threadCount, workNanos, counters, progress);
+            }
+            if (best != null) {
+                counters.countOption(best);
+                result.offer(best);
+            }
+        }
+        statistics.recordSearch(counters);
+        finish(result, progress);
+
+        result.setThreadCount(threadCount);
+        result.setSearchNanos(System.nanoTime() - start);
+        result.setWorkNanos(threadCount == 1 ? result.getSearchNanos() : workNanos.sum());
+        return result;
+    }
+
+    // The best count options of every type. Walks the multisets like the bounded search on a single thread,
+    // but only skips compound dice which can not beat the worst of the options kept so far.
+    // Whatever the enumeration mode, memory only depends on count.
+    public TopResult searchTop(final ConfigSnapshot snapshot, final int wantedDie, final int count,
+                               final SearchProgress progress) {
+        long start = System.nanoTime();
+        int[] sides = snapshot.getSides();
+        SearchCounters counters = new SearchCounters();
+        TopResult result = new TopResult(wantedDie, count);
+        offerSingleDice(wantedDie, sides, counters, result::offer);
+        DivisorSearch.findTop(wantedDie, snapshot, result.getExactProducts(), counters);
+        RecyclingSearch.findTop(wantedDie, snapshot, result.getRecyclingDiscards(), counters, progress);
+        ExactProduct exact = result.getExactProducts().size() > 0
+                ? result.getExactProducts().getOptions().get(0) : null;
+
+        if (snapshot.getMaxRollCount() > 1 && compoundDiceCanWin(wantedDie, exact)) {
+            int[] dieIndizes = new int[snapshot.getMaxRollCount()];
+            Arrays.fill(dieIndizes, -1);
+            progress.start(SearchProgress.multisetCount(sides.length, dieIndizes.length));
+            expandTop(wantedDie, sides, dieIndizes, dieIndizes.length - 1, 0, 1,
+                    largestUsefulDie(wantedDie, snapshot.getProductCeiling()), result.getMultiplyDivideDiscards(),
+                    counters, progress);
+        }
+        statistics.recordSearch(counters);
+        if (progress.isStopped()) {
+            result.setExhaustive(false);
+        } else {
+            progress.complete();
+        }
+        result.setSearchNanos(System.nanoTime() - start);
+        return result;
+    }
+
+    // Same walk as expandBounded(), with the worst kept option as bound once all places are taken
+    private static void expandTop(final int wantedDie, final int[] sides, final int[] dieIndizes, final int position,
+                                  final int lowestIndex, final long simulatedDie, final long largestUsefulDie,
+                                  final TopOptions<MultiplyDivideDiscard> top, final SearchCounters counters,
+                                  final SearchProgress progress) {
+        int rollCount = dieIndizes.length - position;
+        for (int i = lowestIndex; i < sides.length; i++) {
+            if (progress.isStopped()) {
+                break;
+            }
+            long nextSimulatedDie = multiply(simulatedDie, sides[i]);
+            if (nextSimulatedDie > largestUsefulDie
+                    || canNotEnter(top, MultiplyDivideDiscard.lowerThrowsBound(rollCount))) {
+                if (rollCount <= 2) {
+                    progress.coverRemainingDice(sides.length, position, i);
+                }
+                break;
+            }
+            dieIndizes[position] = i;
+            counters.tuples++;
+
+            long discardAbove = discardAbove(wantedDie, nextSimulatedDie, rollCount);
+            counters.count(discardAbove);
+            // Options are only created if they get a place
+            if (discardAbove >= 0 && !canNotEnter(top,
+                    MultiplyDivideDiscard.calculateExpectedThrows(nextSimulatedDie, rollCount, discardAbove))) {
+                MultiplyDivideDiscard option = createOption(wantedDie, sides, dieIndizes, discardAbove);
+                counters.countOption(option);
+                top.offer(option);
+            }
+
+            long smallestNextDie = multiply(nextSimulatedDie, sides[i]);
+            boolean grow = position > 0
+                    && smallestNextDie <= largestUsefulDie
+                    && !canNotEnter(top, MultiplyDivideDiscard.lowerThrowsBound(rollCount + 1));
+            if (grow) {
+                expandTop(wantedDie, sides, dieIndizes, position - 1, i, nextSimulatedDie, largestUsefulDie, top,
+                        counters, progress);
+            }
+            if (rollCount <= 2) {
+                progress.coverDie(sides.length, position, i, grow && rollCount == 1);
+            }
+        }
+        dieIndizes[position] = -1;
+    }
+
+    // An option as good as the worst kept one loses, as it was found later
+    private static boolean canNotEnter(final TopOptions<MultiplyDivideDiscard> top, final double lowerThrowsBound) {
+        return top.isFull() && lowerThrowsBound >= top.getWorst().getExpectedThrows();
+    }
+
+    // Searches several dice at once. Every multiset is walked once and scored against all wanted dice it can produce.
+    // Picks the same options as the bounded search would for every single die.
+    // The MultiplyDivideDiscard and the recycling walks are shared, the divisor search runs once per die as it only
+    // looks at the divisors of that die.
+    // Results are passed to the consumer in ascending order of the wanted dice.
+    public void searchAll(final int[] wantedDice, final Consumer<SearchResult> consumer) {
+        searchAll(wantedDice, new SearchProgress(), consumer);
+    }
+
+    public void searchAll(final int[] wantedDice, final SearchProgress progress,
+                          final Consumer<SearchResult> consumer) {
+        searchAll(config.getSnapshot(), wantedDice, progress, consumer);
+    }
+
+    public void searchAll(final ConfigSnapshot snapshot, final int[] wantedDice, final SearchProgress progress,
+                          final Consumer<SearchResult> consumer) {
+        long start = System.nanoTime();
+        int[] sortedDice = Arrays.stream(wantedDice).distinct().sorted().toArray();
+        if (sortedDice.length == 0) {
+            return;
+        }
+        int[] sides = snapshot.getSides();
+        int maxDieCount = snapshot.getMaxRollCount();
+
+        BatchSearch search = new BatchSearch(sortedDice, maxDieCount, snapshot.getProductCeiling(), progress);
+        if (maxDieCount > 1) {
+            progress.start(SearchProgress.multisetCount(sides.length, maxDieCount));
+            int[] dieIndizes = new int[maxDieCount];
+            Arrays.fill(dieIndizes, -1);
+            expandBatch(sides, dieIndizes, maxDieCount - 1, 0, 1, search);
+        }
+        RecyclingDiscard[] recycling = RecyclingSearch.findAll(sortedDice, snapshot, search.counters, progress);
+        long searchNanos = System.nanoTime() - start;
+
+        int[] bestDieIndizes = new int[maxDieCount];
+        for (int i = 0; i < sortedDice.length; i++) {
+            SearchResult result = createSingleDieResult(sortedDice[i], sides, search.counters);
+            ExactProduct exact = DivisorSearch.find(sortedDice[i], snapshot, search.counters);
+            if (exact != null) {
+                result.offer(exact);
+            }
+            if (recycling[i] != null) {
+                result.offer(recycling[i]);
+            }
+            // The walk is shared, so the dice are only skipped here
+            if (search.bestDiscardAbove[i] >= 0 && compoundDiceCanWin(sortedDice[i], exact)) {
+                System.arraycopy(search.bestDieIndizes, i * maxDieCount, bestDieIndizes, 0, maxDieCount);
+                MultiplyDivideDiscard option = createOption(sortedDice[i], sides, bestDieIndizes,
+                        search.bestDiscardAbove[i]);
+                search.counters.countOption(option);
+                result.offer(option);
+            }
+            finish(result, progress);
+            result.setThreadCount(1);
+            // The walk is shared, so every die gets its share of it
+            result.setSearchNanos(searchNanos / sortedDice.length);
+            result.setWorkNanos(result.getSearchNanos());
+            consumer.accept(result);
+        }
+        statistics.recordSearch(search.counters);
+    }
+
+    // Adds the options of dice which were added to the config after the previous result was found.
+    // Only multisets with at least one of the added dice are walked, as all others were already part of the
+    // previous compound die. The previous option is used as bound, so most of them are skipped right away.
+    // Returns what the bounded and multiset enumerations would find with the new dice, see canExtend().
+    public static SearchResult extend(final SearchResult previous, final ConfigSnapshot snapshot,
+                                      final List<Integer> addedDice) {
+        long start = System.nanoTime();
+        int wantedDie = previous.getWantedDie();
+        int[] sides = snapshot.getSides();
+        int maxRollCount = snapshot.getMaxRollCount();
+        long productCeiling = snapshot.getProductCeiling();
+        // Single dice, exact products and recycling are cheap to check again and keep the order in which equally
+        // good options are found
+        SearchCounters counters = new SearchCounters();
+        SearchResult result = createSingleDieResult(wantedDie, sides, counters);
+        ExactProduct exact = DivisorSearch.find(wantedDie, snapshot, counters);
+        if (exact != null) {
+            result.offer(exact);
+        }
+        offerRecycling(wantedDie, snapshot, counters, new SearchProgress(), result);
+
+        // A search with the new dice skips compound dice if they made an exact option of two dice possible
+        if (maxRollCount > 1 && compoundDiceCanWin(wantedDie, exact)) {
+            MultiplyDivideDiscard previousBest = previous.getBestMultiplyDivideDiscard();
+            boolean[] added = new boolean[sides.length];
+            int lastAddedIndex = -1;
+            for (int i = 0; i < sides.length; i++) {
+                added[i] = addedDice.contains(sides[i]);
+                if (added[i]) {
+                    lastAddedIndex = i;
+                }
+            }
+            BoundedSearch search = new BoundedSearch(null, maxRollCount, largestUsefulDie(wantedDie, productCeiling),
+                    new SearchProgress());
+            if (previousBest != null) {
+                // Options as good as the previous one are still found, their dice might come first
+                search.bestScore = Math.nextUp(previousBest.getExpectedThrows());
+                result.offer(previousBest);
+            }
+            int[] dieIndizes = new int[maxRollCount];
+            Arrays.fill(dieIndizes, -1);
+            expandAdded(wantedDie, sides, added, lastAddedIndex, dieIndizes, maxRollCount - 1, 0, 1, false,
+                    search);
+            // Equally good options are ordered by their dice, as in a full search
+            if (search.bestDiscardAbove >= 0) {
+                result.offer(createOption(wantedDie, sides, search.bestDieIndizes, search.bestDiscardAbove));
+            }
+        }
+
+        result.setThreadCount(1);
+        result.setSearchNanos(System.nanoTime() - start);
+        result.setWorkNanos(result.getSearchNanos());
+        return result;
+    }
+
+    // The odometer and the index list the dice of an option in another order, and the beam may miss options
+    public static boolean canExtend(final EnumerationMode enumerationMode) {
+        return enumerationMode == EnumerationMode.BOUNDED || enumerationMode == EnumerationMode.MULTISET;
+    }
+
+    // Same walk as expandBounded(), but only offers multisets which contain an added die
+    private static void expandAdded(final int wantedDie, final int[] sides, final boolean[] added,
+                                    final int lastAddedIndex, final int[] dieIndizes, final int position,
+                                    final int lowestIndex, final long simulatedDie, final boolean containsAdded,
+                                    final BoundedSearch search) {
+        int rollCount = dieIndizes.length - position;
+        for (int i = lowestIndex; i < sides.length; i++) {
+            // Dice only get larger, so without an added die so far none can be picked anymore
+            if (!containsAdded && i > lastAddedIndex) {
+                break;
+            }
+            long nextSimulatedDie = multiply(simulatedDie, sides[i]);
+            if (nextSimulatedDie > search.largestUsefulDie
+                    || search.canNotWin(MultiplyDivideDiscard.lowerThrowsBound(rollCount))) {
+                break;
+            }
+            dieIndizes[position] = i;
+            search.counters.tuples++;
+            boolean nextContainsAdded = containsAdded || added[i];
+
+            if (nextContainsAdded) {
+                offerBounded(wantedDie, dieIndizes, nextSimulatedDie, rollCount, search);
+            }
+
+            if (canGrow(wantedDie, position, rollCount, multiply(nextSimulatedDie, sides[i]), search)) {
+                expandAdded(wantedDie, sides, added, lastAddedIndex, dieIndizes, position - 1, i,
+                        nextSimulatedDie, nextContainsAdded, search);
+            }
+        }
+        dieIndizes[position] = -1;
+    }
+
+    // Best option of every wanted die of a batch, in the same layout as BoundedSearch
+    private static class BatchSearch {
+        private final int[] wantedDice;
+        private final int maxDieCount;
+        private final int[] bestDieIndizes;
+        private final long[] bestDiscardAbove;
+        private final double[] bestScore;
+        // Tree of the highest best score of every range of wanted dice. Leaves start at index leafOffset.
+        // Tells if a compound die can still beat the best option of any die it can be used for.
+        private final int leafOffset;
+        private final double[] highestBestScore;
+        // No compound die above this can produce an option for any of the wanted dice
+        private final long largestUsefulDie;
+        private final SearchCounters counters = new SearchCounters();
+        private final SearchProgress progress;
+
+        BatchSearch(final int[] wantedDice, final int maxDieCount, final long productCeiling,
+                    final SearchProgress progress) {
+            this.wantedDice = wantedDice;
+            this.progress = progress;
+            this.maxDieCount = maxDieCount;
+            this.bestDieIndizes = new int[wantedDice.length * maxDieCount];
+            this.bestDiscardAbove = new long[wantedDice.length];
+            this.bestScore = new double[wantedDice.length];
+            Arrays.fill(bestDiscardAbove, -1);
+            Arrays.fill(bestScore, Double.POSITIVE_INFINITY);
+            this.leafOffset = Integer.highestOneBit(Math.max(1, wantedDice.length - 1)) << 1;
+            this.highestBestScore = new double[2 * leafOffset];
+            Arrays.fill(highestBestScore, leafOffset, leafOffset + wantedDice.length, Double.POSITIVE_INFINITY);
+            Arrays.fill(highestBestScore, 1, leafOffset, Double.POSITIVE_INFINITY);
+            this.largestUsefulDie = largestUsefulDie(wantedDice[wantedDice.length - 1], productCeiling);
+        }
+
+        // Index of the smallest wanted die which needs to be divided by at most 10 with this compound die
+        int firstUsefulDie(final long simulatedDie) {
+            int first = Arrays.binarySearch(wantedDice, (int) Math.min(Integer.MAX_VALUE, (simulatedDie + 10) / 11));
+            return first < 0 ? -first - 1 : first;
+        }
+
+        // True if no compound die of at least this size and roll count can be better than the current options
+        // of all wanted dice it can be used for
+        boolean canNotWin(final long simulatedDie, final int rollCount) {
+            double lowerThrowsBound = MultiplyDivideDiscard.lowerThrowsBound(rollCount);
+            int from = firstUsefulDie(simulatedDie) + leafOffset;
+            int to = wantedDice.length - 1 + leafOffset;
+            // Walk up the tree from both ends of the range
+            while (from <= to) {
+                if ((from & 1) == 1 && highestBestScore[from++] > lowerThrowsBound) {
+                    return false;
+                }
+                if ((to & 1) == 0 && highestBestScore[to--] > lowerThrowsBound) {
+                    return false;
+                }
+                from >>= 1;
+                to >>= 1;
+            }
+            return true;
+        }
+
+        // Scores the compound die against every wanted die which needs to be divided by at most 10
+        void offer(final int[] dieIndizes, final long simulatedDie, final int rollCount) {
+            double lowerThrowsBound = MultiplyDivideDiscard.lowerThrowsBound(rollCount);
+            for (int i = firstUsefulDie(simulatedDie); i < wantedDice.length && wantedDice[i] < simulatedDie; i++) {
+                if (bestScore[i] <= lowerThrowsBound) {
+                    continue;
+                }
+                long discardAbove = discardAbove(wantedDice[i], simulatedDie, rollCount);
+                counters.count(discardAbove);
+                if (discardAbove < 0) {
+                    continue;
+                }
+                double score = MultiplyDivideDiscard.calculateExpectedThrows(simulatedDie, rollCount, discardAbove);
+                if (score < bestScore[i]) {
+                    System.arraycopy(dieIndizes, 0, bestDieIndizes, i * maxDieCount, maxDieCount);
+                    bestDiscardAbove[i] = discardAbove;
+                    bestScore[i] = score;
+                    updateHighestBestScore(i, score);
+                }
+            }
+        }
+
+        private void updateHighestBestScore(final int wantedDieIndex, final double score) {
+            int node = wantedDieIndex + leafOffset;
+            highestBestScore[node] = score;
+            for (node >>= 1; node > 0; node >>= 1) {
+                highestBestScore[node] = Math.max(highestBestScore[2 * node], highestBestScore[2 * node + 1]);
+            }
+        }
+    }
+
+    private void expandBatch(final int[] sides, final int[] dieIndizes, final int position, final int lowestIndex,
+                             final long simulatedDie, final BatchSearch search) {
+        int rollCount = dieIndizes.length - position;
+        // Dice are sorted ascending, so once a die is too large all following dice are too large as well.
+        for (int i = lowestIndex; i < sides.length; i++) {
+            if (search.progress.isStopped()) {
+                break;
+            }
+            long nextSimulatedDie = multiply(simulatedDie, sides[i]);
+            if (nextSimulatedDie > search.largestUsefulDie || search.canNotWin(nextSimulatedDie, rollCount)) {
+                if (rollCount <= 2) {
+                    search.progress.coverRemainingDice(sides.length, position, i);
+                }
+                break;
+            }
+            dieIndizes[position] = i;
+            search.counters.tuples++;
+
+            if (rollCount > 1) {
+                search.offer(dieIndizes, nextSimulatedDie, rollCount);
+            }
+
+            long smallestNextDie = multiply(nextSimulatedDie, sides[i]);
+            boolean grow = position > 0
+                    && smallestNextDie <= search.largestUsefulDie
+                    && !search.canNotWin(smallestNextDie, rollCount + 1);
+            if (grow) {
+                expandBatch(sides, dieIndizes, position - 1, i, nextSimulatedDie, search);
+            }
+            if (rollCount <= 2) {
+                search.progress.coverDie(sides.length, position, i, grow && rollCount == 1);
+            }
+        }
+        dieIndizes[position] = -1;
+    }
+
+    // Product of a compound die and one more die. Saturates at Long.MAX_VALUE instead of overflowing,
+    // so a product beyond 64 bits is above every limit and never produces an option.
+    static long multiply(final long simulatedDie, final int sides) {
+        long product = simulatedDie * sides;
+        if (Math.multiplyHigh(simulatedDie, sides) != 0 || product < 0) {
+            return Long.MAX_VALUE;
+        }
+        return product;
+    }
+
+    // The beam search with the config of the snapshot next to the bounded search on a single thread.
+    // Both only look for MultiplyDivideDiscard, the other options do not depend on the enumeration.
+    public BeamComparison compareBeam(final ConfigSnapshot snapshot, final int wantedDie) {
+        BeamComparison comparison = new BeamComparison();
+        comparison.setWantedDie(wantedDie);
+        if (snapshot.getMaxRollCount() < 2) {
+            return comparison;
+        }
+
+        SearchCounters counters = new SearchCounters();
+        long start = System.nanoTime();
+        comparison.setBeamOption(BeamSearch.find(wantedDie, snapshot, counters, new SearchProgress()));
+        comparison.setBeamNanos(System.nanoTime() - start);
+
+        start = System.nanoTime();
+        comparison.setExhaustiveOption(expandDieBounded(wantedDie, snapshot, 1, new LongAdder(), counters,
+                new SearchProgress()));
+        comparison.setExhaustiveNanos(System.nanoTime() - start);
+        statistics.recordSearch(counters);
+        return comparison;
+    }
+
+    static double throwsGap(final MultiplyDivideDiscard found, final MultiplyDivideDiscard best) {
+        if (best == null) {
+            return 0;
+        }
+        if (found == null) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return found.getExpectedThrows() - best.getExpectedThrows();
+    }
+
+    // discardAbove() never accepts a compound die which needs to be divided by more than 10.
+    // Compound dice only grow when more dice are added, so nothing above this limit can produce an option.
+    static long largestUsefulDie(final int wantedDie, final long productCeiling) {
+        return Math.min(11L * wantedDie, productCeiling);
+    }
+
+    // Compound dice use at least two dice and always discard some results,
+    // so an exact option of at most two dice can not be beaten and the search is skipped.
+    // All searches apply it, so they list the same options.
+    private static boolean compoundDiceCanWin(final int wantedDie, final ExactProduct exact) {
+        return exact == null || exact.getExpectedThrows() > MultiplyDivideDiscard.lowerThrowsBound(2);
+    }
+
+    // Marks results of stopped searches, they might have missed better options
+    private static void finish(final SearchResult result, final SearchProgress progress) {
+        if (progress.isStopped()) {
+            result.setExhaustive(false);
+        } else {
+            progress.complete();
+        }
+    }
+
+    private static void offerRecycling(final int wantedDie, final ConfigSnapshot snapshot,
+                                       final SearchCounters counters, final SearchProgress progress,
+                                       final SearchResult result) {
+        RecyclingDiscard recycling = RecyclingSearch.find(wantedDie, snapshot, counters, progress);
+        if (recycling != null) {
+            result.offer(recycling);
+        }
+    }
+
+    private static SearchResult createSingleDieResult(final int wantedDie, final int[] sides,
+                                                      final SearchCounters counters) {
+        SearchResult result = new SearchResult();
+        result.setWantedDie(wantedDie);
+        offerSingleDice(wantedDie, sides, counters, result::offer);
+        return result;
+    }
+
+    private static void offerSingleDice(final int wantedDie, final int[] sides, final SearchCounters counters,
+                                        final Consumer<Option> consumer) {
+        for (int commonDie : sides) {
+            if (wantedDie % commonDie == 0) {
+                consumer.accept(new RollMultiple(new DiceRoll(new Die(commonDie), wantedDie / commonDie)));
+                counters.rollMultiples++;
+            }
+
+            if (wantedDie < commonDie) {
+                consumer.accept(new Discard(new Die(commonDie), wantedDie));
+                counters.discards++;
+            }
+        }
+    }
+
+    // Reference search. Visits every permutation and creates an option for each of them.
+    // Options are passed on as they are created instead of being collected.
+    private void expandDie(final int wantedDie, final ConfigSnapshot snapshot, final SearchCounters counters,
+                           final SearchProgress progress, final Consumer<MultiplyDivideDiscard> consumer) {
+        int[] sides = snapshot.getSides();
+        int maxDieCount = snapshot.getMaxRollCount();
+        // Every permutation of up to maxDieCount dice
+        double permutations = 0;
+        for (int rollCount = 1; rollCount <= maxDieCount; rollCount++) {
+            permutations += Math.pow(sides.length, rollCount);
+        }
+        progress.start(permutations);
+
+        // Highest number any digit is allowed to reach
+        int oneDigitLimit = sides.length - 1;
+
+        // -1 indicates we do not use this die yet
+        int[] dieCounters = new int[maxDieCount];
+        Arrays.fill(dieCounters, -1);
+        dieCounters[maxDieCount - 1] = 0; // We need to start counting at the last element
+
+        while (!progress.isStopped()) {
+            long simulatedDie = 0; // Our current compound die
+            for (int dieCounter : dieCounters) {
+                // Exclude any dies we don't use yet
+                if (dieCounter < 0) {
+                    continue;
+                }
+                // If this is the first die, assign it otherwise multiply with previous simulated die
+                if (simulatedDie == 0) {
+                    simulatedDie = sides[dieCounter];
+                } else {
+                    simulatedDie = multiply(simulatedDie, sides[dieCounter]);
+                }
+            }
+
+            counters.tuples++;
+            if ((counters.tuples & (PROGRESS_INTERVAL - 1)) == 0) {
+                progress.cover(PROGRESS_INTERVAL);
+            }
+            if (simulatedDie > snapshot.getProductCeiling()) {
+                counters.rejectedAboveCeiling++;
+            } else if (simulatedDie > wantedDie) {
+                MultiplyDivideDiscard result = expand(wantedDie, sides, dieCounters, simulatedDie, counters);
+                if (result != null) {
+                    counters.countOption(result);
+                    consumer.accept(result);
+                }
+            } else {
+                counters.rejectedTooSmall++;
+            }
+
+            // increase lowest digit
+            dieCounters[dieCounters.length - 1]++;
+
+            // check if we need to increase the next digit and reset the lower ones
+            for (int i = dieCounters.length - 1; i >= 0; i--) {
+                if (dieCounters[i] > oneDigitLimit) {
+                    // if the highest digit is over the limit, we tried all combinations and reached the end.
+                    if (i == 0) {
+                        return;
+                    }
+                    dieCounters[i] = 0;
+                    dieCounters[i - 1] = dieCounters[i - 1] + 1;
+                }
+            }
+        }
+    }
+
+    // Keeps the winner of SearchResult.offer() over all multisets seen so far, without creating options.
+    private static class MultisetSearch {
+        private final SearchCounters counters = new SearchCounters();
+        private final int[] bestDieIndizes;
+        private long bestDiscardAbove = -1;
+        private double bestScore;
+
+        MultisetSearch(final int maxDieCount) {
+            bestDieIndizes = new int[maxDieCount];
+        }
+
+        // Multisets are offered in walk order, which is also the order of the dice SearchResult breaks ties with.
+        // So the first of several equally good multisets wins.
+        void offer(final int[] dieIndizes, final long discardAbove, final double score) {
+            if (bestDiscardAbove < 0 || score < bestScore) {
+                System.arraycopy(dieIndizes, 0, bestDieIndizes, 0, dieIndizes.length);
+                bestDiscardAbove = discardAbove;
+                bestScore = score;
+            }
+        }
+
+        // The other search must have walked multisets after the ones of this search.
+        void merge(final MultisetSearch later) {
+            counters.add(later.counters);
+            if (later.bestDiscardAbove >= 0) {
+                offer(later.bestDieIndizes, later.bestDiscardAbove, later.bestScore);
+            }
+        }
+    }
+
+    private MultiplyDivideDiscard expandDieMultisets(final int wantedDie, final ConfigSnapshot snapshot,
+                                                     final int threadCount, final LongAdder workNanos,
+                                                     final SearchCounters counters, final SearchProgress progress) {
+        int[] sides = snapshot.getSides();
+        int maxDieCount = snapshot.getMaxRollCount();
+        long productCeiling = snapshot.getProductCeiling();
+        // Same layout as the odometer: -1 indicates we do not use this die yet and used dice fill the array
+        // from the last element towards the first one.
+        int[] dieIndizes = new int[maxDieCount];
+        Arrays.fill(dieIndizes, -1);
+        MultisetSearch search = new MultisetSearch(maxDieCount);
+        progress.start(SearchProgress.multisetCount(sides.length, maxDieCount));
+
+        if (threadCount > 1) {
+            List<MultisetBranch> branches = new ArrayList<>();
+            for (int i = 0; i < sides.length; i++) {
+                branches.add(new MultisetBranch(wantedDie, sides, dieIndizes, maxDieCount - 1, i, 1,
+                        productCeiling, workNanos, progress));
+            }
+            getPool(threadCount).invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(branches)));
+            branches.forEach(branch -> search.merge(branch.join()));
+            counters.add(search.counters);
+        } else {
+            expandMultisets(wantedDie, sides, dieIndizes, maxDieCount - 1, 0, 1, productCeiling, search, counters,
+                    progress);
+        }
+
+        return createOption(wantedDie, sides, search.bestDieIndizes, search.bestDiscardAbove);
+    }
+
+    private void expandMultisets(final int wantedDie, final int[] sides, final int[] dieIndizes, final int position,
+                                 final int lowestIndex, final long simulatedDie, final long productCeiling,
+                                 final MultisetSearch search, final SearchCounters counters,
+                                 final SearchProgress progress) {
+        int rollCount = dieIndizes.length - position;
+        // Dice are only ever added in non-decreasing index order.
+        // d6 * d12 is visited, d12 * d6 is not as it results in the very same compound die.
+        for (int i = lowestIndex; i < sides.length; i++) {
+            if (progress.isStopped()) {
+                break;
+            }
+            long nextSimulatedDie = multiply(simulatedDie, sides[i]);
+            // Dice are sorted ascending, so all following dice are above the ceiling as well
+            if (nextSimulatedDie > productCeiling) {
+                if (rollCount <= 2) {
+                    progress.coverRemainingDice(sides.length, position, i);
+                }
+                break;
+            }
+            dieIndizes[position] = i;
+            counters.tuples++;
+
+            long discardAbove = discardAbove(wantedDie, nextSimulatedDie, rollCount);
+            counters.count(discardAbove);
+            if (discardAbove >= 0) {
+                search.offer(dieIndizes, discardAbove,
+                        MultiplyDivideDiscard.calculateExpectedThrows(nextSimulatedDie, rollCount, discardAbove));
+            }
+
+            // Add another die on top of the current ones
+            if (position > 0) {
+                expandMultisets(wantedDie, sides, dieIndizes, position - 1, i, nextSimulatedDie, productCeiling,
+                        search, counters, progress);
+            }
+            if (rollCount <= 2) {
+                progress.coverDie(sides.length, position, i, position > 0 && rollCount == 1);
+            }
+        }
+        dieIndizes[position] = -1;
+    }
+
+    // Adds one die to a prefix of dice and walks every multiset starting with this prefix.
+    // Every branch keeps its own best option, branches are merged in the order of the sequential walk.
+    private class MultisetBranch extends RecursiveTask<MultisetSearch> {
+        private final int wantedDie;
+        private final int[] sides;
+        private final int[] dieIndizes;
+        private final int position;
+        private final int dieIndex;
+        private final long simulatedDie;
+        private final long productCeiling;
+        private final LongAdder workNanos;
+        private final SearchProgress progress;
+
+        MultisetBranch(final int wantedDie, final int[] sides, final int[] dieIndizes, final int position,
+                       final int dieIndex, final long simulatedDie, final long productCeiling,
+                       final LongAdder workNanos, final SearchProgress progress) {
+            this.wantedDie = wantedDie;
+            this.sides = sides;
+            this.dieIndizes = dieIndizes.clone();
+            this.position = position;
+            this.dieIndex = dieIndex;
+            this.simulatedDie = simulatedDie;
+            this.productCeiling = productCeiling;
+            this.workNanos = workNanos;
+            this.progress = progress;
+        }
+
+        @Override
+        protected MultisetSearch compute() {
+            long start = workTime();
+            int rollCount = dieIndizes.length - position;
+            MultisetSearch search = new MultisetSearch(dieIndizes.length);
+            long nextSimulatedDie = multiply(simulatedDie, sides[dieIndex]);
+            if (nextSimulatedDie > productCeiling) {
+                progress.coverDie(sides.length, position, dieIndex, false);
+                workNanos.add(workTime() - start);
+                return search;
+            }
+            dieIndizes[position] = dieIndex;
+            search.counters.tuples++;
+
+            long discardAbove = discardAbove(wantedDie, nextSimulatedDie, rollCount);
+            search.counters.count(discardAbove);
+            if (discardAbove >= 0) {
+                search.offer(dieIndizes, discardAbove,
+                        MultiplyDivideDiscard.calculateExpectedThrows(nextSimulatedDie, rollCount, discardAbove));
+            }
+
+            if (position > 0 && rollCount < FORK_DEPTH) {
+                List<MultisetBranch> branches = new ArrayList<>();
+                for (int i = dieIndex; i < sides.length; i++) {
+                    branches.add(new MultisetBranch(wantedDie, sides, dieIndizes, position - 1, i, nextSimulatedDie,
+                            productCeiling, workNanos, progress));
+                }
+                progress.coverDie(sides.length, position, dieIndex, true);
+                workNanos.add(workTime() - start);
+                invokeAll(branches);
+                branches.forEach(branch -> search.merge(branch.join()));
+                return search;
+            }
+
+            if (position > 0) {
+                expandMultisets(wantedDie, sides, dieIndizes, position - 1, dieIndex, nextSimulatedDie,
+                        productCeiling, search, search.counters, progress);
+            }
+            progress.coverDie(sides.length, position, dieIndex, false);
+            workNanos.add(workTime() - start);
+            return search;
+        }
+    }
+
+    // Keeps the best option found so far while walking the multisets.
+    private static class BoundedSearch {
+        // Best score of all workers as raw long bits. Scores are positive, so the bits sort like the scores.
+        // Only set if several workers search in parallel.
+        private final AtomicLong sharedBestScore;
+        private final int[] bestDieIndizes;
+        private long bestDiscardAbove = -1;
+        private double bestScore = Double.POSITIVE_INFINITY;
+        private final SearchCounters counters = new SearchCounters();
+        // No compound die above this can produce an option
+        private final long largestUsefulDie;
+        private final SearchProgress progress;
+
+        BoundedSearch(final AtomicLong sharedBestScore, final int maxDieCount, final long largestUsefulDie,
+                      final SearchProgress progress) {
+            this.sharedBestScore = sharedBestScore;
+            this.largestUsefulDie = largestUsefulDie;
+            this.progress = progress;
+            this.bestDieIndizes = new int[maxDieCount];
+        }
+
+        // Options as good as the best one of another worker must not be skipped,
+        // as they might have been found first by the sequential walk.
+        boolean canNotWin(final double lowerThrowsBound) {
+            return lowerThrowsBound >= bestScore
+                    || (sharedBestScore != null
+                    && lowerThrowsBound > Double.longBitsToDouble(sharedBestScore.get()));
+        }
+
+        void offer(final int[] dieIndizes, final long discardAbove, final double score) {
+            if (score < bestScore) {
+                System.arraycopy(dieIndizes, 0, bestDieIndizes, 0, dieIndizes.length);
+                bestDiscardAbove = discardAbove;
+                bestScore = score;
+                if (sharedBestScore != null) {
+                    sharedBestScore.accumulateAndGet(Double.doubleToLongBits(score), Math::min);
+                }
+            }
+        }
+
+        // The other search must have walked combinations after the ones of this search.
+        void merge(final BoundedSearch later) {
+            counters.add(later.counters);
+            if (later.bestDiscardAbove >= 0) {
+                offer(later.bestDieIndizes, later.bestDiscardAbove, later.bestScore);
+            }
+        }
+    }
+
+    private MultiplyDivideDiscard expandDieBounded(final int wantedDie, final ConfigSnapshot snapshot,
+                                                   final int threadCount, final LongAdder workNanos,
+                                                   final SearchCounters counters, final SearchProgress progress) {
+        int[] sides = snapshot.getSides();
+        int maxDieCount = snapshot.getMaxRollCount();
+        int[] dieIndizes = new int[maxDieCount];
+        Arrays.fill(dieIndizes, -1);
+        long largestUsefulDie = largestUsefulDie(wantedDie, snapshot.getProductCeiling());
+        BoundedSearch search = new BoundedSearch(null, maxDieCount, largestUsefulDie, progress);
+        progress.start(SearchProgress.multisetCount(sides.length, maxDieCount));
+
+        if (threadCount > 1) {
+            AtomicLong sharedBestScore = new AtomicLong(Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+            List<BoundedBranch> branches = new ArrayList<>();
+            for (int i = 0; i < sides.length; i++) {
+                branches.add(new BoundedBranch(wantedDie, sides, dieIndizes, maxDieCount - 1, i, 1,
+                        largestUsefulDie, sharedBestScore, workNanos, progress));
+            }
+            getPool(threadCount).invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(branches)));
+            branches.forEach(branch -> search.merge(branch.join()));
+        } else {
+            expandBounded(wantedDie, sides, dieIndizes, maxDieCount - 1, 0, 1, search);
+        }
+
+        counters.add(search.counters);
+        return createOption(wantedDie, sides, search.bestDieIndizes, search.bestDiscardAbove);
+    }
+
+    private void expandBounded(final int wantedDie, final int[] sides, final int[] dieIndizes, final int position,
+                               final int lowestIndex, final long simulatedDie, final BoundedSearch search) {
+        // Number of dice once the die of this level is added
+        int rollCount = dieIndizes.length - position;
+
+        // Dice are sorted ascending, so once a die is too large all following dice are too large as well.
+        for (int i = lowestIndex; i < sides.length; i++) {
+            if (search.progress.isStopped()) {
+                break;
+            }
+            long nextSimulatedDie = multiply(simulatedDie, sides[i]);
+            if (nextSimulatedDie > search.largestUsefulDie
+                    || search.canNotWin(MultiplyDivideDiscard.lowerThrowsBound(rollCount))) {
+                if (rollCount <= 2) {
+                    search.progress.coverRemainingDice(sides.length, position, i);
+                }
+                break;
+            }
+            dieIndizes[position] = i;
+            search.counters.tuples++;
+
+            offerBounded(wantedDie, dieIndizes, nextSimulatedDie, rollCount, search);
+
+            boolean grow = canGrow(wantedDie, position, rollCount, multiply(nextSimulatedDie, sides[i]), search);
+            if (grow) {
+                expandBounded(wantedDie, sides, dieIndizes, position - 1, i, nextSimulatedDie, search);
+            }
+            if (rollCount <= 2) {
+                search.progress.coverDie(sides.length, position, i, grow && rollCount == 1);
+            }
+        }
+        dieIndizes[position] = -1;
+    }
+
+    private static void offerBounded(final int wantedDie, final int[] dieIndizes, final long simulatedDie,
+                                     final int rollCount, final BoundedSearch search) {
+        long discardAbove = discardAbove(wantedDie, simulatedDie, rollCount);
+        search.counters.count(discardAbove);
+        if (discardAbove >= 0) {
+            search.offer(dieIndizes, discardAbove,
+                    MultiplyDivideDiscard.calculateExpectedThrows(simulatedDie, rollCount, discardAbove));
+        }
+    }
+
+    // Every die added on top multiplies the compound die by at least the current die and adds one roll
+    private static boolean canGrow(final int wantedDie, final int position, final int rollCount,
+                                   final long smallestNextDie, final BoundedSearch search) {
+        return position > 0
+                && smallestNextDie <= search.largestUsefulDie
+                && !search.canNotWin(MultiplyDivideDiscard.lowerThrowsBound(rollCount + 1));
+    }
+
+    // Parallel counterpart of one step of expandBounded().
+    // Every branch keeps its own best option, branches are merged in the order of the sequential walk.
+    private class BoundedBranch extends RecursiveTask<BoundedSearch> {
+        private final int wantedDie;
+        private final int[] sides;
+        private final int[] dieIndizes;
+        private final int position;
+        private final int dieIndex;
+        private final long simulatedDie;
+        private final long largestUsefulDie;
+        private final AtomicLong sharedBestScore;
+        private final LongAdder workNanos;
+        private final SearchProgress progress;
+
+        BoundedBranch(final int wantedDie, final int[] sides, final int[] dieIndizes, final int position,
+                      final int dieIndex, final long simulatedDie, final long largestUsefulDie,
+                      final AtomicLong sharedBestScore, final LongAdder workNanos, final SearchProgress progress) {
+            this.wantedDie = wantedDie;
+            this.sides = sides;
+            this.dieIndizes = dieIndizes.clone();
+            this.position = position;
+            this.dieIndex = dieIndex;
+            this.simulatedDie = simulatedDie;
+            this.largestUsefulDie = largestUsefulDie;
+            this.sharedBestScore = sharedBestScore;
+            this.workNanos = workNanos;
+            this.progress = progress;
+        }
+
+        @Override
+        protected BoundedSearch compute() {
+            long start = workTime();
+            BoundedSearch search = new BoundedSearch(sharedBestScore, dieIndizes.length, largestUsefulDie, progress);
+            int rollCount = dieIndizes.length - position;
+            long nextSimulatedDie = multiply(simulatedDie, sides[dieIndex]);
+            if (nextSimulatedDie > largestUsefulDie
+                    || search.canNotWin(MultiplyDivideDiscard.lowerThrowsBound(rollCount))) {
+                progress.coverDie(sides.length, position, dieIndex, false);
+                workNanos.add(workTime() - start);
+                return search;
+            }
+            dieIndizes[position] = dieIndex;
+            search.counters.tuples++;
+
+            offerBounded(wantedDie, dieIndizes, nextSimulatedDie, rollCount, search);
+
+            if (!canGrow(wantedDie, position, rollCount, multiply(nextSimulatedDie, sides[dieIndex]), search)) {
+                progress.coverDie(sides.length, position, dieIndex, false);
+                workNanos.add(workTime() - start);
+                return search;
+            }
+
+            if (rollCount < FORK_DEPTH) {
+                List<BoundedBranch> branches = new ArrayList<>();
+                for (int i = dieIndex; i < sides.length; i++) {
+                    branches.add(new BoundedBranch(wantedDie, sides, dieIndizes, position - 1, i, nextSimulatedDie,
+                            largestUsefulDie, sharedBestScore, workNanos, progress));
+                }
+                progress.coverDie(sides.length, position, dieIndex, true);
+                workNanos.add(workTime() - start);
+                invokeAll(branches);
+                branches.forEach(branch -> search.merge(branch.join()));
+                return search;
+            }
+
+            expandBounded(wantedDie, sides, dieIndizes, position - 1, dieIndex, nextSimulatedDie, search);
+            progress.coverDie(sides.length, position, dieIndex, false);
+            workNanos.add(workTime() - start);
+            return search;
+        }
+    }
+
+    // CPU time of the current thread, so workers waiting for a core are not counted as working
+    private static long workTime() {
+        if (THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()) {
+            return THREAD_MX_BEAN.getCurrentThreadCpuTime();
+        }
+        return System.nanoTime();
+    }
+
+    // Stops the threads of parallel searches. A search started afterwards starts them again.
+    public synchronized void close() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    private synchronized ForkJoinPool getPool(final int threadCount) {
+        if (pool == null || pool.getParallelism() != threadCount) {
+            if (pool != null) {
+                pool.shutdown();
+            }
+            pool = new ForkJoinPool(threadCount);
+        }
+        return pool;
+    }
+
+    // Same rules as expand(), but only works on primitives.
+    // Returns the largest result which is not discarded or one of the negative REJECTED values
+    // if this compound die does not produce an option.
+    static long discardAbove(final int wantedDie, final long simulatedDie, final int rollCount) {
+        if (simulatedDie <= wantedDie) {
+            return REJECTED_TOO_SMALL;
+        }
+        // Largest multiple of the wanted die below the compound die
+        long multiplications = (simulatedDie - 1) / wantedDie;
+        long discardAbove = multiplications * wantedDie;
+
+        if (simulatedDie / 3 > discardAbove) {
+            return REJECTED_DISCARD_TOO_LARGE;
+        }
+        if (multiplications > 10) {
+            return REJECTED_DIVIDE_TOO_LARGE;
+        }
+        // Exclude combinations which only have one die, as they are already found by another Option.
+        if (rollCount < 2) {
+            return REJECTED_SINGLE_DIE;
+        }
+        return discardAbove;
+    }
+
+    // Reference expansion, creates an option for every accepted compound die.
+    private MultiplyDivideDiscard expand(int wantedDie, int[] sides, int[] dieIndizes, long simulatedDie,
+                                         SearchCounters counters) {
+        // Our current die is large enough to fit at least one time the wantedDie range.
+        // Find out by how much the resulting die needs to be divided (if at all):
+        // Smallest multiple of the wanted die which is not below the compound die
+        long multiplications = (simulatedDie - 1) / wantedDie + 1;
+        long largestMultiple = wantedDie * multiplications;
+        largestMultiple -= wantedDie;
+        multiplications--;
+
+        // Find out which results need to be discarded
+        long discardAbove = simulatedDie - (simulatedDie - largestMultiple);
+
+        // first die result * (first die sides + second die sides) + second die result + ...
+
+        // Exclude combinations where the discard is lager than 1/3 of the die
+        // (would mean only one in 3 tries would produce a non-discard result)
+        if (simulatedDie / 3 > discardAbove) {
+            counters.rejectedDiscardTooLarge++;
+            return null;
+        }
+        // Exclude combinations where we need to divide by more than 10
+        if (multiplications > 10) {
+            counters.rejectedDivideTooLarge++;
+            return null;
+        }
+        // Exclude combinations which only have one die, as they are already found by another Option.
+        if (dieIndizes[dieIndizes.length - 2] < 0) {
+            counters.rejectedSingleDie++;
+            return null;
+        }
+        counters.scored++;
+
+        return createOption(wantedDie, sides, dieIndizes, discardAbove);
+    }
+
+    static MultiplyDivideDiscard createOption(final int wantedDie, final int[] sides,
+                                                      final int[] dieIndizes, final long discardAbove) {
+        if (discardAbove < 0) {
+            return null;
+        }
+        return new MultiplyDivideDiscard((int) (discardAbove / wantedDie), discardAbove,
+                requiredRolls(sides, dieIndizes));
+    }
+
+    static List<DiceRoll> requiredRolls(final int[] sides, final int[] dieIndizes) {
+        // Find all dies needed for this option
+        Map<Die, Integer> usedDies = new HashMap<>();
+        for (int dieIndex : dieIndizes) {
+            if (dieIndex >= 0) {
+                Die die = new Die(sides[dieIndex]);
+                Integer counter = usedDies.computeIfAbsent(die, ignored -> 0);
+                counter++;
+                usedDies.put(die, counter);
+            }
+        }
+        List<DiceRoll> diceRolls = new ArrayList<>();
+        usedDies.forEach((die, count) -> diceRolls.add(new DiceRoll(die, count)));
+        return diceRolls;
+    }
+}
@@ -0,0 +1,124 @@
+package org.pungrammer.arbitrarydiceinstructor.search;
+
+import org.pungrammer.arbitrarydiceinstructor.config.ConfigSnapshot;
+import org.pungrammer.arbitrarydiceinstructor.option.ExactProduct;
+import org.pungrammer.arbitrarydiceinstructor.option.MultiplyDivideDiscard;
+
+import java.util.Arrays;
+
+// Finds compound dice which are a multiple of the wanted die, so nothing needs to be discarded.
+// Instead of walking all multisets it walks the divisors of the wanted die: every die picked has to cover a part
+// of the wanted die which is not covered yet, so no branch is deeper than the wanted die has prime factors.
+// A wanted die with a prime factor none of the dice has is rejected right away.
+final class DivisorSearch {
+
+    // Same limit as DiceSearch.discardAbove() puts on dividing compound dice
+    private static final int MAX_DIVIDE_BY = 10;
+
+    private DivisorSearch() {
+    }
+
+    // Returns null if the wanted die can not be rolled exactly, or if it is one of the dice
+    static ExactProduct find(final int wantedDie, final ConfigSnapshot snapshot, final SearchCounters counters) {
+        TopOptions<ExactProduct> top = new TopOptions<>(1);
+        findTop(wantedDie, snapshot, top, counters);
+        return top.getWorst();
+    }
+
+    // Offers the best exact options to top, nothing if the wanted die is one of the dice
+    static void findTop(final int wantedDie, final ConfigSnapshot snapshot, final TopOptions<ExactProduct> top,
+                        final SearchCounters counters) {
+        int[] sides = snapshot.getSides();
+        // Rolling the die itself can not be beaten and is already a RollMultiple
+        if (Arrays.binarySearch(sides, wantedDie) >= 0) {
+            return;
+        }
+        int[][] primeFactors = snapshot.getPrimeFactors();
+        for (int prime : ConfigSnapshot.factorize(wantedDie)) {
+            boolean found = false;
+            for (int i = 0; i < sides.length && !found; i++) {
+                found = Arrays.binarySearch(primeFactors[i], prime) >= 0;
+            }
+            if (!found) {
+                return;
+            }
+        }
+
+        Walk walk = new Walk(wantedDie, sides, snapshot.getMaxRollCount(),
+                Math.min((long) MAX_DIVIDE_BY * wantedDie, snapshot.getProductCeiling()), top, counters);
+        walk.expand(walk.dieIndizes.length - 1, 0, 1, wantedDie);
+    }
+
+    private static class Walk {
+        private final int wantedDie;
+        private final int[] sides;
+        // Filled from the end like the walks of DiceSearch, -1 is an unused position
+        private final int[] dieIndizes;
+        private final long largestProduct;
+        private final TopOptions<ExactProduct> top;
+        private final SearchCounters counters;
+
+        Walk(final int wantedDie, final int[] sides, final int maxRollCount, final long largestProduct,
+             final TopOptions<ExactProduct> top, final SearchCounters counters) {
+            this.wantedDie = wantedDie;
+            this.sides = sides;
+            this.dieIndizes = new int[maxRollCount];
+            Arrays.fill(dieIndizes, -1);
+            this.largestProduct = largestProduct;
+            this.top = top;
+            this.counters = counters;
+        }
+
+        // rest is the part of the wanted die the dice picked so far do not cover yet
+        void expand(final int position, final int lowestIndex, final long product, final int rest) {
+            int rollCount = dieIndizes.length - position;
+            // Dice are sorted ascending, so once a die is too large all following dice are too large as well
+            for (int i = lowestIndex; i < sides.length; i++) {
+                long nextProduct = DiceSearch.multiply(product, sides[i]);
+                if (nextProduct > largestProduct
+                        || canNotEnter(MultiplyDivideDiscard.lowerThrowsBound(rollCount))) {
+                    break;
+                }
+                int covered = gcd(rest, sides[i]);
+                // A die which covers nothing only makes the compound die larger
+                if (covered == 1) {
+                    continue;
+                }
+                int nextRest = rest / covered;
+                // The rest still has to be covered by more dice
+                if (DiceSearch.multiply(nextProduct, nextRest) > largestProduct) {
+                    continue;
+                }
+                dieIndizes[position] = i;
+                counters.tuples++;
+
+                if (nextRest == 1) {
+                    counters.scored++;
+                    ExactProduct option = new ExactProduct((int) (nextProduct / wantedDie),
+                            DiceSearch.requiredRolls(sides, dieIndizes));
+                    counters.countOption(option);
+                    top.offer(option);
+                } else if (position > 0) {
+                    expand(position - 1, i, nextProduct, nextRest);
+                }
+            }
+            dieIndizes[position] = -1;
+        }
+
+        // An option as good as the worst kept one loses, as it was found later
+        private boolean canNotEnter(final double lowerThrowsBound) {
+            return top.isFull() && lowerThrowsBound >= top.getWorst().getExpectedThrows();
+        }
+
+        private static int gcd(final int a, final int b) {
+            int x = a;
+            int y = b;
+            while (y != 0) {
+                int t = x % y;
+                x = y;
+                y = t;
+            }
+            return x;
+        }
+    }
+}
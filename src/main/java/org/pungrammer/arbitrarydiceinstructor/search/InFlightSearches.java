@@ -0,0 +1,88 @@
+package org.pungrammer.arbitrarydiceinstructor.search;
+
+import lombok.Data;
+import org.pungrammer.arbitrarydiceinstructor.config.ConfigSnapshot;
+import org.pungrammer.arbitrarydiceinstructor.config.EnumerationMode;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Searches which are running right now, shared by all sessions of a server.
+// A search for the same die with the same settings as a running one waits for its result instead of
+// searching again. Finished searches are forgotten, caching them is up to every session.
+public class InFlightSearches {
+
+    // Everything the result of a search depends on
+    @Data
+    private static class Key {
+        private final int wantedDie;
+        private final List<Integer> availableDice;
+        private final int maxRollCount;
+        private final EnumerationMode enumerationMode;
+        private final long productCeiling;
+        // The beam enumeration finds other options with another width, 0 for the other modes
+        private final int beamWidth;
+    }
+
+    private final ConcurrentHashMap<Key, CompletableFuture<SearchResult>> running = new ConcurrentHashMap<>();
+    private final LongAdder sharedSearches = new LongAdder();
+
+    // Runs the search unless the same search is already running, in that case its result is returned.
+    // A waiting search waits at most its own time budget and only takes exhaustive results, as the running one may
+    // have been stopped by a smaller budget. Otherwise it searches on its own, with whatever is left of its budget.
+    public SearchResult search(final ConfigSnapshot snapshot, final int wantedDie,
+                               final Supplier<SearchResult> search) {
+        Key key = new Key(wantedDie, snapshot.getAvailableDice(), snapshot.getMaxRollCount(),
+                snapshot.getEnumerationMode(), snapshot.getProductCeiling(),
+                snapshot.getEnumerationMode() == EnumerationMode.BEAM ? snapshot.getBeamWidth() : 0);
+        CompletableFuture<SearchResult> own = new CompletableFuture<>();
+        CompletableFuture<SearchResult> other = running.putIfAbsent(key, own);
+        if (other != null) {
+            SearchResult shared = await(other, snapshot.getTimeBudgetMillis());
+            if (shared != null && shared.isExhaustive()) {
+                sharedSearches.increment();
+                return shared;
+            }
+            return search.get();
+        }
+
+        try {
+            SearchResult result = search.get();
+            own.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            running.remove(key, own);
+        }
+    }
+
+    // Returns null if the search did not finish within the time budget, 0 waits without a limit
+    private static SearchResult await(final CompletableFuture<SearchResult> future, final long timeBudgetMillis) {
+        try {
+            return timeBudgetMillis > 0 ? future.get(timeBudgetMillis, TimeUnit.MILLISECONDS) : future.get();
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException("The search was interrupted.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Number of searches which got the result of another one
+    public long getSharedSearches() {
+        return sharedSearches.sum();
+    }
+}
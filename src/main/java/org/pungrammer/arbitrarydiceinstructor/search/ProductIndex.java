@@ -0,0 +1,378 @@
+package org.pungrammer.arbitrarydiceinstructor.search;
+
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.config.ConfigSnapshot;
+import org.pungrammer.arbitrarydiceinstructor.option.MultiplyDivideDiscard;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Every compound die up to a fixed size which can be rolled with the available dice, sorted by size.
+// Each compound die only remembers the recipe with the fewest dice, as it is always thrown the fewest times.
+// Rebuilt whenever the max roll count of the config changes and updated whenever the dice change.
+public class ProductIndex {
+
+    // Immutable, so searches can keep using a table while a new one is built
+    private static class Table {
+        private final int[] sides;
+        private final int maxRollCount;
+        // Sizes of all compound dice made of at least two dice, ascending
+        private final int[] products;
+        private final byte[] rollCounts;
+        // Compound die this one is made of without its last die.
+        // Negative values are a single die: -1 is the die at index 0, -2 the one at index 1 and so on.
+        private final int[] parents;
+        private final short[] lastDice;
+        private final long buildNanos;
+
+        Table(final int[] sides, final int maxRollCount, final int[] products, final byte[] rollCounts,
+              final int[] parents, final short[] lastDice, final long buildNanos) {
+            this.sides = sides;
+            this.maxRollCount = maxRollCount;
+            this.products = products;
+            this.rollCounts = rollCounts;
+            this.parents = parents;
+            this.lastDice = lastDice;
+            this.buildNanos = buildNanos;
+        }
+    }
+
+    private final Config config;
+    private final int largestProduct;
+    private volatile Table table;
+
+    public ProductIndex(final Config config, final int largestProduct) {
+        this.config = config;
+        this.largestProduct = largestProduct;
+        this.table = build();
+        config.addMaxRollCountChangeListener(() -> table = build());
+        config.addDiceChangeListener((addedDice, removedDice) -> table = update(table, addedDice));
+    }
+
+    // Compound dice larger than 11 times the wanted die need to be divided by more than 10, so they are never used
+    public boolean covers(final int wantedDie) {
+        return 11L * wantedDie <= largestProduct;
+    }
+
+    // Also false while the table still belongs to other dice or another max roll count than the snapshot
+    public boolean covers(final ConfigSnapshot snapshot, final int wantedDie) {
+        Table current = table;
+        return covers(wantedDie) && current.maxRollCount == snapshot.getMaxRollCount()
+                && Arrays.equals(current.sides, snapshot.getSides());
+    }
+
+    // Scans all compound dice the wanted die fits in at most 10 times. A larger compound die may discard less,
+    // so none of them can be skipped. Returns null if none of them is usable or the table does not belong to the
+    // snapshot.
+    public MultiplyDivideDiscard find(final ConfigSnapshot snapshot, final int wantedDie,
+                                      final SearchCounters counters) {
+        Table current = table;
+        if (!covers(wantedDie) || current.maxRollCount < 2 || current.maxRollCount != snapshot.getMaxRollCount()
+                || !Arrays.equals(current.sides, snapshot.getSides())) {
+            return null;
+        }
+
+        int first = Arrays.binarySearch(current.products, wantedDie + 1);
+        if (first < 0) {
+            first = -first - 1;
+        }
+        int best = -1;
+        long bestDiscardAbove = -1;
+        double bestScore = Double.POSITIVE_INFINITY;
+        long largestUsefulDie = DiceSearch.largestUsefulDie(wantedDie, snapshot.getProductCeiling());
+        for (int i = first; i < current.products.length && current.products[i] <= largestUsefulDie; i++) {
+            counters.tuples++;
+            long discardAbove = DiceSearch.discardAbove(wantedDie, current.products[i], current.rollCounts[i]);
+            counters.count(discardAbove);
+            if (discardAbove < 0) {
+                continue;
+            }
+            double score = MultiplyDivideDiscard.calculateExpectedThrows(current.products[i], current.rollCounts[i],
+                    discardAbove);
+            // Equally cheap compound dice of other sizes are not in walk order, so their dice decide like in the search
+            if (score < bestScore || (score == bestScore && createOption(current, i, wantedDie, discardAbove)
+                    .isBetterThan(createOption(current, best, wantedDie, bestDiscardAbove)) > 0)) {
+                best = i;
+                bestDiscardAbove = discardAbove;
+                bestScore = score;
+            }
+        }
+        if (best < 0) {
+            return null;
+        }
+        return createOption(current, best, wantedDie, bestDiscardAbove);
+    }
+
+    // Follows the parents to find all dice, using the same layout as the search
+    private static MultiplyDivideDiscard createOption(final Table current, final int best, final int wantedDie,
+                                                      final long discardAbove) {
+        int[] dieIndizes = new int[current.maxRollCount];
+        Arrays.fill(dieIndizes, -1);
+        int position = current.maxRollCount - 1;
+        int entry = best;
+        while (entry >= 0) {
+            dieIndizes[position--] = current.lastDice[entry];
+            entry = current.parents[entry];
+        }
+        dieIndizes[position] = -entry - 1;
+        return DiceSearch.createOption(wantedDie, current.sides, dieIndizes, discardAbove);
+    }
+
+    public String getSummary() {
+        return String.format("Indexed %d compound dice up to d%d in %dms using %dKiB",
+                size(), largestProduct, getBuildNanos() / 1_000_000, getMemoryBytes() / 1024);
+    }
+
+    public int size() {
+        return table.products.length;
+    }
+
+    public int getLargestProduct() {
+        return largestProduct;
+    }
+
+    public long getBuildNanos() {
+        return table.buildNanos;
+    }
+
+    // Memory used by the arrays of the index
+    public long getMemoryBytes() {
+        Table current = table;
+        return current.products.length * (4L + 1L + 4L + 2L) + current.sides.length * 4L;
+    }
+
+    // Entries of an index while it is updated. Parents are referred to by their product instead of their position.
+    private static class Entries {
+        // Open addressing from products to ids. Slots hold the id plus one, so zero marks a free slot.
+        private int[] slots = new int[128];
+        private int size;
+        private int[] products = new int[64];
+        private byte[] rollCounts = new byte[64];
+        private int[] parents = new int[64];
+        private short[] lastDice = new short[64];
+
+        int id(final int product) {
+            for (int slot = slot(product, slots.length); slots[slot] != 0; slot = (slot + 1) & (slots.length - 1)) {
+                if (products[slots[slot] - 1] == product) {
+                    return slots[slot] - 1;
+                }
+            }
+            return -1;
+        }
+
+        int rollCount(final int product) {
+            int id = id(product);
+            return id < 0 ? Integer.MAX_VALUE : rollCounts[id];
+        }
+
+        // Keeps the recipe with fewer dice
+        void offer(final int product, final int rollCount, final int parent, final int lastDie) {
+            int id = id(product);
+            if (id < 0) {
+                if (size == products.length) {
+                    products = Arrays.copyOf(products, size * 2);
+                    rollCounts = Arrays.copyOf(rollCounts, size * 2);
+                    parents = Arrays.copyOf(parents, size * 2);
+                    lastDice = Arrays.copyOf(lastDice, size * 2);
+                }
+                id = size++;
+                products[id] = product;
+                if (size * 2 > slots.length) {
+                    slots = new int[slots.length * 2];
+                    for (int i = 0; i < size; i++) {
+                        insert(i);
+                    }
+                } else {
+                    insert(id);
+                }
+            } else if (rollCounts[id] <= rollCount) {
+                return;
+            }
+            rollCounts[id] = (byte) rollCount;
+            parents[id] = parent;
+            lastDice[id] = (short) lastDie;
+        }
+
+        private void insert(final int id) {
+            int slot = slot(products[id], slots.length);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (slots.length - 1);
+            }
+            slots[slot] = id + 1;
+        }
+
+        // Fibonacci hashing, the slot count is a power of two
+        private static int slot(final int product, final int slotCount) {
+            return (product * 0x9E3779B9) >>> (Integer.numberOfLeadingZeros(slotCount) + 1);
+        }
+    }
+
+    // Keeps all entries which do not use a removed die and only looks for compound dice which
+    // either used a removed die before or use an added die now.
+    private Table update(final Table old, final List<Integer> addedDice) {
+        ConfigSnapshot snapshot = config.getSnapshot();
+        if (old.maxRollCount != snapshot.getMaxRollCount()) {
+            return build();
+        }
+        long start = System.nanoTime();
+        int[] sides = snapshot.getSides();
+        int maxRollCount = old.maxRollCount;
+        // Position of every old die in the new dice, -1 if it was removed
+        int[] newDieIndizes = Arrays.stream(old.sides).map(die -> Math.max(Arrays.binarySearch(sides, die), -1))
+                .toArray();
+
+        // Parents are smaller than their children, so they are always checked first
+        Entries entries = new Entries();
+        boolean[] usesRemovedDie = new boolean[old.products.length];
+        int[] removedProducts = new int[old.products.length];
+        int removedCount = 0;
+        for (int i = 0; i < old.products.length; i++) {
+            int parent = old.parents[i];
+            usesRemovedDie[i] = newDieIndizes[old.lastDice[i]] < 0
+                    || (parent < 0 ? newDieIndizes[-parent - 1] < 0 : usesRemovedDie[parent]);
+            if (usesRemovedDie[i]) {
+                removedProducts[removedCount++] = old.products[i];
+            } else {
+                entries.offer(old.products[i], old.rollCounts[i],
+                        parent < 0 ? -newDieIndizes[-parent - 1] - 1 : old.products[parent],
+                        newDieIndizes[old.lastDice[i]]);
+            }
+        }
+
+        // Compound dice which used a removed die might still be possible with the remaining dice.
+        // With the fewest dice possible, the compound die without its last die is an entry with one die less.
+        for (int rollCount = 2; rollCount <= maxRollCount; rollCount++) {
+            for (int j = 0; j < removedCount; j++) {
+                int product = removedProducts[j];
+                for (int i = 0; i < sides.length && entries.rollCount(product) > rollCount; i++) {
+                    if (product % sides[i] != 0) {
+                        continue;
+                    }
+                    int rest = product / sides[i];
+                    if (rollCount == 2) {
+                        int single = Arrays.binarySearch(sides, rest);
+                        if (single >= 0) {
+                            entries.offer(product, rollCount, -single - 1, i);
+                        }
+                    } else if (entries.rollCount(rest) == rollCount - 1) {
+                        entries.offer(product, rollCount, rest, i);
+                    }
+                }
+            }
+        }
+
+        // Every compound die with an added die is an added die on top of a compound die with one die less
+        int[] addedIndizes = addedDice.stream().mapToInt(die -> Arrays.binarySearch(sides, die)).toArray();
+        for (int rollCount = 2; rollCount <= maxRollCount && addedIndizes.length > 0; rollCount++) {
+            if (rollCount == 2) {
+                for (int single = 0; single < sides.length; single++) {
+                    offerAdded(entries, sides, addedIndizes, sides[single], rollCount, -single - 1);
+                }
+            } else {
+                for (int id = 0; id < entries.size; id++) {
+                    if (entries.rollCounts[id] == rollCount - 1) {
+                        offerAdded(entries, sides, addedIndizes, entries.products[id], rollCount,
+                                entries.products[id]);
+                    }
+                }
+            }
+        }
+
+        // Sort by product and point the parents to their positions
+        int[] sortedProducts = Arrays.copyOf(entries.products, entries.size);
+        Arrays.sort(sortedProducts);
+        byte[] sortedRollCounts = new byte[entries.size];
+        int[] sortedParents = new int[entries.size];
+        short[] sortedLastDice = new short[entries.size];
+        for (int i = 0; i < entries.size; i++) {
+            int id = entries.id(sortedProducts[i]);
+            int parent = entries.parents[id];
+            sortedRollCounts[i] = entries.rollCounts[id];
+            sortedParents[i] = parent < 0 ? parent : Arrays.binarySearch(sortedProducts, parent);
+            sortedLastDice[i] = entries.lastDice[id];
+        }
+
+        return new Table(sides, maxRollCount, sortedProducts, sortedRollCounts, sortedParents, sortedLastDice,
+                System.nanoTime() - start);
+    }
+
+    private void offerAdded(final Entries entries, final int[] sides, final int[] addedIndizes,
+                            final long parentProduct, final int rollCount, final int parent) {
+        for (int added : addedIndizes) {
+            long product = parentProduct * sides[added];
+            if (product <= largestProduct) {
+                entries.offer((int) product, rollCount, parent, added);
+            }
+        }
+    }
+
+    private Table build() {
+        long start = System.nanoTime();
+        ConfigSnapshot snapshot = config.getSnapshot();
+        int[] sides = snapshot.getSides();
+        int maxRollCount = snapshot.getMaxRollCount();
+
+        // Entries in the order they are found. Sorted by product at the end.
+        int size = 0;
+        int[] products = new int[64];
+        byte[] rollCounts = new byte[64];
+        int[] parents = new int[64];
+        short[] lastDice = new short[64];
+        BitSet known = new BitSet();
+
+        // Compound dice found with the previous number of dice. Starts with the single dice.
+        int[] frontier = IntStream.range(0, sides.length).map(i -> -i - 1).toArray();
+        for (int rollCount = 2; rollCount <= maxRollCount && frontier.length > 0; rollCount++) {
+            int frontierStart = size;
+            for (int parent : frontier) {
+                long parentProduct = parent < 0 ? sides[-parent - 1] : products[parent];
+                // Dice are sorted ascending, so once a die is too large all following dice are too large as well.
+                for (int i = 0; i < sides.length && parentProduct * sides[i] <= largestProduct; i++) {
+                    int product = (int) (parentProduct * sides[i]);
+                    // The first recipe found uses the fewest dice
+                    if (known.get(product)) {
+                        continue;
+                    }
+                    known.set(product);
+                    if (size == products.length) {
+                        products = Arrays.copyOf(products, size * 2);
+                        rollCounts = Arrays.copyOf(rollCounts, size * 2);
+                        parents = Arrays.copyOf(parents, size * 2);
+                        lastDice = Arrays.copyOf(lastDice, size * 2);
+                    }
+                    products[size] = product;
+                    rollCounts[size] = (byte) rollCount;
+                    parents[size] = parent;
+                    lastDice[size] = (short) i;
+                    size++;
+                }
+            }
+            frontier = IntStream.range(frontierStart, size).toArray();
+        }
+
+        // Sort by product and point the parents to their new positions
+        int[] finalProducts = Arrays.copyOf(products, size);
+        int[] order = IntStream.range(0, size).boxed()
+                .sorted((a, b) -> Integer.compare(finalProducts[a], finalProducts[b]))
+                .mapToInt(Integer::intValue).toArray();
+        int[] newPositions = new int[size];
+        for (int i = 0; i < size; i++) {
+            newPositions[order[i]] = i;
+        }
+        int[] sortedProducts = new int[size];
+        byte[] sortedRollCounts = new byte[size];
+        int[] sortedParents = new int[size];
+        short[] sortedLastDice = new short[size];
+        for (int i = 0; i < size; i++) {
+            sortedProducts[i] = products[order[i]];
+            sortedRollCounts[i] = rollCounts[order[i]];
+            sortedParents[i] = parents[order[i]] < 0 ? parents[order[i]] : newPositions[parents[order[i]]];
+            sortedLastDice[i] = lastDice[order[i]];
+        }
+
+        return new Table(sides, maxRollCount, sortedProducts, sortedRollCounts, sortedParents, sortedLastDice,
+                System.nanoTime() - start);
+    }
+}
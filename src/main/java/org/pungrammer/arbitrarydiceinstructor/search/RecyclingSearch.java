@@ -0,0 +1,210 @@
+package org.pungrammer.arbitrarydiceinstructor.search;
+
+import org.pungrammer.arbitrarydiceinstructor.config.ConfigSnapshot;
+import org.pungrammer.arbitrarydiceinstructor.dice.Die;
+import org.pungrammer.arbitrarydiceinstructor.option.MultiplyDivideDiscard;
+import org.pungrammer.arbitrarydiceinstructor.option.RecyclingDiscard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Finds compound dice whose discarded results are recycled instead of thrown away, see RecyclingDiscard.
+// Walks the multisets like the bounded search, single dice included. Every compound die which discards something
+// is followed by every die for each of the recycling stages.
+// Compound dice of fewer dice are walked first: they are the cheap ones, and once an option is found all compound
+// dice of more dice than it needs throws are skipped.
+// A batch of wanted dice shares the walk, every compound die is scored against all wanted dice it can produce.
+// The walk stops early once the progress is stopped, see SearchProgress.
+final class RecyclingSearch {
+
+    // More stages make the instructions longer while every stage is reached less often
+    static final int MAX_STAGES = 2;
+    // Same limit as DiceSearch.discardAbove() puts on dividing compound dice, for every stage
+    private static final int MAX_DIVIDE_BY = 10;
+
+    private RecyclingSearch() {
+    }
+
+    // Returns null if no compound die leaves anything to recycle
+    static RecyclingDiscard find(final int wantedDie, final ConfigSnapshot snapshot, final SearchCounters counters,
+                                 final SearchProgress progress) {
+        return findAll(new int[]{wantedDie}, snapshot, counters, progress)[0];
+    }
+
+    static void findTop(final int wantedDie, final ConfigSnapshot snapshot, final TopOptions<RecyclingDiscard> top,
+                        final SearchCounters counters, final SearchProgress progress) {
+        new Walk(new int[]{wantedDie}, snapshot, List.of(top), counters, progress).run();
+    }
+
+    // The best option of every wanted die, null for dice without one. The wanted dice have to be sorted ascending.
+    // The multisets are walked once for all of them.
+    static RecyclingDiscard[] findAll(final int[] wantedDice, final ConfigSnapshot snapshot,
+                                      final SearchCounters counters, final SearchProgress progress) {
+        List<TopOptions<RecyclingDiscard>> tops = new ArrayList<>(wantedDice.length);
+        for (int i = 0; i < wantedDice.length; i++) {
+            tops.add(new TopOptions<>(1));
+        }
+        new Walk(wantedDice, snapshot, tops, counters, progress).run();
+        RecyclingDiscard[] best = new RecyclingDiscard[wantedDice.length];
+        for (int i = 0; i < wantedDice.length; i++) {
+            best[i] = tops.get(i).getWorst();
+        }
+        return best;
+    }
+
+    private static class Walk {
+        private final int[] wantedDice;
+        private final int[] sides;
+        // Filled from the end like the walks of DiceSearch, -1 is an unused position
+        private final int[] dieIndizes;
+        private final long productCeiling;
+        // No compound die above this can produce an option for any of the wanted dice
+        private final long largestUsefulDie;
+        // Options of every wanted die, in the same order
+        private final List<TopOptions<RecyclingDiscard>> tops;
+        private final SearchCounters counters;
+        private final SearchProgress progress;
+        private final int[] recyclingSides = new int[MAX_STAGES];
+        // Expected throws of the worst kept option of every wanted die once its top is full, so it is not
+        // calculated for every stage
+        private final double[] worstThrows;
+
+        Walk(final int[] wantedDice, final ConfigSnapshot snapshot, final List<TopOptions<RecyclingDiscard>> tops,
+             final SearchCounters counters, final SearchProgress progress) {
+            this.wantedDice = wantedDice;
+            this.sides = snapshot.getSides();
+            this.dieIndizes = new int[snapshot.getMaxRollCount()];
+            Arrays.fill(dieIndizes, -1);
+            this.productCeiling = snapshot.getProductCeiling();
+            this.largestUsefulDie = wantedDice.length == 0 ? 0
+                    : DiceSearch.largestUsefulDie(wantedDice[wantedDice.length - 1], productCeiling);
+            this.tops = tops;
+            this.counters = counters;
+            this.progress = progress;
+            this.worstThrows = new double[wantedDice.length];
+            Arrays.fill(worstThrows, Double.POSITIVE_INFINITY);
+        }
+
+        // Walks the multisets of one roll count after the other, until no wanted die can take an option of
+        // that many dice any more
+        void run() {
+            for (int rollCount = 1; rollCount <= dieIndizes.length && !progress.isStopped()
+                    && anyCanEnter(MultiplyDivideDiscard.lowerThrowsBound(rollCount)); rollCount++) {
+                expand(dieIndizes.length - 1, 0, 1, rollCount);
+            }
+        }
+
+        private boolean anyCanEnter(final double lowerThrowsBound) {
+            for (int target = 0; target < wantedDice.length; target++) {
+                if (!canNotEnter(target, lowerThrowsBound)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Walks the multisets of exactly rollCount dice
+        void expand(final int position, final int lowestIndex, final long simulatedDie, final int rollCount) {
+            // Dice are sorted ascending, so once a die is too large all following dice are too large as well
+            for (int i = lowestIndex; i < sides.length && !progress.isStopped(); i++) {
+                long nextSimulatedDie = DiceSearch.multiply(simulatedDie, sides[i]);
+                if (nextSimulatedDie > largestUsefulDie) {
+                    break;
+                }
+                dieIndizes[position] = i;
+                if (dieIndizes.length - position < rollCount) {
+                    expand(position - 1, i, nextSimulatedDie, rollCount);
+                    continue;
+                }
+                counters.tuples++;
+
+                // Only wanted dice below the compound die which divide it by at most MAX_DIVIDE_BY + 1 can use it,
+                // see DiceSearch.largestUsefulDie()
+                double lowerThrowsBound = MultiplyDivideDiscard.lowerThrowsBound(rollCount);
+                for (int target = firstTarget(nextSimulatedDie);
+                     target < wantedDice.length && wantedDice[target] < nextSimulatedDie; target++) {
+                    if (nextSimulatedDie > productCeiling || canNotEnter(target, lowerThrowsBound)) {
+                        continue;
+                    }
+                    long keep = RecyclingDiscard.keep(wantedDice[target], nextSimulatedDie);
+                    // Same rules as DiceSearch.discardAbove(), a compound die without a discard is an exact
+                    // option. A single discarded result is no randomness to recycle, rolling it again is
+                    // starting over.
+                    if (keep > 0 && nextSimulatedDie - keep > 1 && nextSimulatedDie / 3 <= keep) {
+                        counters.scoredRecycling++;
+                        expandStages(target, nextSimulatedDie, rollCount, keep, 0, nextSimulatedDie - keep,
+                                rollCount, ((double) (nextSimulatedDie - keep)) / nextSimulatedDie);
+                    }
+                }
+            }
+            dieIndizes[position] = -1;
+        }
+
+        // Index of the smallest wanted die with 11 * wantedDie >= simulatedDie
+        private int firstTarget(final long simulatedDie) {
+            int index = Arrays.binarySearch(wantedDice, (int) Math.min(Integer.MAX_VALUE,
+                    (simulatedDie + MAX_DIVIDE_BY) / (MAX_DIVIDE_BY + 1)));
+            return index >= 0 ? index : -index - 1;
+        }
+
+        // Tries every die for the next stage. throwsPerAttempt and discardProbability are those of the stages so far,
+        // calculated the same way as RecyclingDiscard.calculateExpectedThrows().
+        private void expandStages(final int target, final long simulatedDie, final int rollCount, final long keep,
+                                  final int stage, final long leftover, final double throwsPerAttempt,
+                                  final double discardProbability) {
+            int wantedDie = wantedDice[target];
+            for (int side : sides) {
+                long stageDie = leftover * side;
+                long stageKeep = RecyclingDiscard.keep(wantedDie, stageDie);
+                // Dice are sorted ascending, so once a stage divides too much all following dice do as well
+                if (stageKeep / wantedDie > MAX_DIVIDE_BY) {
+                    break;
+                }
+                if (stageKeep == 0) {
+                    continue;
+                }
+                double nextThrowsPerAttempt = throwsPerAttempt + discardProbability;
+                // Every later stage only adds throws, and the throws of an attempt are a lower bound
+                if (canNotEnter(target, nextThrowsPerAttempt)) {
+                    continue;
+                }
+                recyclingSides[stage] = side;
+                long nextLeftover = stageDie - stageKeep;
+                double nextDiscardProbability = discardProbability * (((double) nextLeftover) / stageDie);
+                offer(target, simulatedDie, rollCount, keep, stage + 1,
+                        nextThrowsPerAttempt / (1 - nextDiscardProbability));
+                if (stage + 1 < MAX_STAGES && nextLeftover > 1) {
+                    expandStages(target, simulatedDie, rollCount, keep, stage + 1, nextLeftover,
+                            nextThrowsPerAttempt, nextDiscardProbability);
+                }
+            }
+        }
+
+        private void offer(final int target, final long simulatedDie, final int rollCount, final long keep,
+                           final int stageCount, final double expectedThrows) {
+            // Recycling which does not save anything only makes the instructions longer
+            if (canNotEnter(target, expectedThrows)
+                    || expectedThrows >= RecyclingDiscard.expectedThrows(rollCount, simulatedDie, keep)) {
+                return;
+            }
+            List<Die> recyclingDice = new ArrayList<>();
+            for (int i = 0; i < stageCount; i++) {
+                recyclingDice.add(new Die(recyclingSides[i]));
+            }
+            RecyclingDiscard option = new RecyclingDiscard((int) (keep / wantedDice[target]), keep,
+                    DiceSearch.requiredRolls(sides, dieIndizes), recyclingDice);
+            counters.countOption(option);
+            TopOptions<RecyclingDiscard> top = tops.get(target);
+            if (top.offer(option) && top.isFull()) {
+                worstThrows[target] = top.getWorst().getExpectedThrows();
+            }
+        }
+
+        // Options are compared by their dice once they cost the same, which does not follow the walk order.
+        // So only options which cost more than the worst kept one are skipped.
+        private boolean canNotEnter(final int target, final double lowerThrowsBound) {
+            return lowerThrowsBound > worstThrows[target];
+        }
+    }
+}
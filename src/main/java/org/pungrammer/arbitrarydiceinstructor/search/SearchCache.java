@@ -0,0 +1,160 @@
+package org.pungrammer.arbitrarydiceinstructor.search;
+
+import lombok.Data;
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.config.ConfigSnapshot;
+import org.pungrammer.arbitrarydiceinstructor.config.EnumerationMode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Remembers the results of the most recent searches.
+// An entry is only found for the dice, max roll count, product ceiling and enumeration it was searched with.
+// All entries are dropped as soon as the max roll count or the product ceiling of the config changes, as none of
+// them can be found any more. When dice are removed only the results using them are dropped. When dice are added
+// the results are extended by the options using the new dice the next time they are asked for. Results of the
+// enumerations which DiceSearch.extend() does not reproduce are dropped on any change of the dice.
+public class SearchCache {
+
+    @Data
+    private static class Key {
+        private final int wantedDie;
+        // Sorted and distinct, like the dice of the config
+        private final List<Integer> availableDice;
+        private final int maxRollCount;
+        private final long productCeiling;
+        // The enumeration modes may pick different options if several are equally good
+        private final EnumerationMode enumerationMode;
+        // The beam enumeration finds other options with another width, 0 for the other modes
+        private final int beamWidth;
+
+        private Key withAvailableDice(final List<Integer> dice) {
+            return new Key(wantedDie, dice, maxRollCount, productCeiling, enumerationMode, beamWidth);
+        }
+    }
+
+    @Data
+    private static class Entry {
+        private final SearchResult result;
+        // Dice added to the config since the result was found
+        private final List<Integer> addedDice;
+    }
+
+    private final Map<Key, Entry> results;
+    private final int capacity;
+    private long hits;
+    private long misses;
+    private long updates;
+
+    public SearchCache(final Config config, final int capacity) {
+        this.capacity = capacity;
+        // Access order turns the map into a LRU cache
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > SearchCache.this.capacity;
+            }
+        };
+        config.addMaxRollCountChangeListener(this::clear);
+        config.addProductCeilingChangeListener(this::clear);
+        config.addDiceChangeListener(this::diceChanged);
+    }
+
+    // Returns null if the result for this die is not known for the settings of the snapshot
+    public synchronized SearchResult get(final ConfigSnapshot snapshot, final int wantedDie) {
+        Key key = createKey(snapshot, wantedDie);
+        Entry entry = results.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        if (!entry.getAddedDice().isEmpty()) {
+            entry = new Entry(DiceSearch.extend(entry.getResult(), snapshot, entry.getAddedDice()), List.of());
+            results.put(key, entry);
+            updates++;
+        }
+        return entry.getResult();
+    }
+
+    // The snapshot has to be the one the result was searched with
+    public synchronized void put(final ConfigSnapshot snapshot, final int wantedDie, final SearchResult result) {
+        results.put(createKey(snapshot, wantedDie), new Entry(result, List.of()));
+    }
+
+    // Entries move to the key of the new dice, so they are found with them
+    private synchronized void diceChanged(final List<Integer> addedDice, final List<Integer> removedDice) {
+        Map<Key, Entry> changed = new LinkedHashMap<>();
+        results.forEach((key, entry) -> {
+            if (!DiceSearch.canExtend(key.getEnumerationMode()) || uses(entry.getResult(), removedDice)) {
+                return;
+            }
+            List<Integer> dice = new ArrayList<>(key.getAvailableDice());
+            dice.removeAll(removedDice);
+            addedDice.stream().filter(die -> !dice.contains(die)).forEach(dice::add);
+            dice.sort(Integer::compareTo);
+            List<Integer> pendingDice = new ArrayList<>(entry.getAddedDice());
+            pendingDice.removeAll(removedDice);
+            pendingDice.addAll(addedDice);
+            changed.put(key.withAvailableDice(List.copyOf(dice)), new Entry(entry.getResult(), pendingDice));
+        });
+        results.clear();
+        results.putAll(changed);
+    }
+
+    public synchronized void clear() {
+        results.clear();
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    // Hits which had to be extended by the options of added dice
+    public synchronized long getUpdates() {
+        return updates;
+    }
+
+    private static Key createKey(final ConfigSnapshot snapshot, final int wantedDie) {
+        return new Key(wantedDie, snapshot.getAvailableDice(), snapshot.getMaxRollCount(),
+                snapshot.getProductCeiling(), snapshot.getEnumerationMode(),
+                snapshot.getEnumerationMode() == EnumerationMode.BEAM ? snapshot.getBeamWidth() : 0);
+    }
+
+    // Whether any option of the result rolls one of the dice
+    private static boolean uses(final SearchResult result, final List<Integer> dice) {
+        if (result.getBestRollMultiple() != null
+                && dice.contains(result.getBestRollMultiple().getRoll().getDie().getSides())) {
+            return true;
+        }
+        if (result.getBestDiscard() != null && dice.contains(result.getBestDiscard().getDie().getSides())) {
+            return true;
+        }
+        if (result.getBestExactProduct() != null && result.getBestExactProduct().getRequiredRolls().stream()
+                .anyMatch(roll -> dice.contains(roll.getDie().getSides()))) {
+            return true;
+        }
+        if (result.getBestRecyclingDiscard() != null && (result.getBestRecyclingDiscard().getRequiredRolls().stream()
+                .anyMatch(roll -> dice.contains(roll.getDie().getSides()))
+                || result.getBestRecyclingDiscard().getRecyclingDice().stream()
+                .anyMatch(die -> dice.contains(die.getSides())))) {
+            return true;
+        }
+        return result.getBestMultiplyDivideDiscard() != null && result.getBestMultiplyDivideDiscard()
+                .getRequiredRolls().stream().anyMatch(roll -> dice.contains(roll.getDie().getSides()));
+    }
+}
@@ -0,0 +1,79 @@
+package org.pungrammer.arbitrarydiceinstructor.search;
+
+import lombok.Data;
+import org.pungrammer.arbitrarydiceinstructor.option.BigMultiplyDivideDiscard;
+import org.pungrammer.arbitrarydiceinstructor.option.Discard;
+import org.pungrammer.arbitrarydiceinstructor.option.ExactProduct;
+import org.pungrammer.arbitrarydiceinstructor.option.MultiplyDivideDiscard;
+import org.pungrammer.arbitrarydiceinstructor.option.Option;
+import org.pungrammer.arbitrarydiceinstructor.option.RecyclingDiscard;
+import org.pungrammer.arbitrarydiceinstructor.option.RollMultiple;
+
+// What a search did. Every worker counts on its own instance, they are added up once the search is done.
+@Data
+public class SearchCounters {
+
+    // Combinations of dice looked at
+    long tuples;
+    // Compound dice rejected by each of the rules of DiceSearch.discardAbove()
+    long rejectedTooSmall;
+    long rejectedDiscardTooLarge;
+    long rejectedDivideTooLarge;
+    long rejectedSingleDie;
+    // Compound dice above the product ceiling of the config
+    long rejectedAboveCeiling;
+    // Compound dice which passed all rules and got a score
+    long scored;
+    // Compound dice the recycling walk scored as the first roll of a RecyclingDiscard
+    long scoredRecycling;
+    long rollMultiples;
+    long discards;
+    long multiplyDivideDiscards;
+    long exactProducts;
+    long recyclingDiscards;
+
+    // Counts the result of DiceSearch.discardAbove()
+    void count(final long discardAbove) {
+        if (discardAbove >= 0) {
+            scored++;
+        } else if (discardAbove == DiceSearch.REJECTED_TOO_SMALL) {
+            rejectedTooSmall++;
+        } else if (discardAbove == DiceSearch.REJECTED_DISCARD_TOO_LARGE) {
+            rejectedDiscardTooLarge++;
+        } else if (discardAbove == DiceSearch.REJECTED_DIVIDE_TOO_LARGE) {
+            rejectedDivideTooLarge++;
+        } else {
+            rejectedSingleDie++;
+        }
+    }
+
+    void countOption(final Option option) {
+        if (option instanceof RollMultiple) {
+            rollMultiples++;
+        } else if (option instanceof Discard) {
+            discards++;
+        } else if (option instanceof MultiplyDivideDiscard || option instanceof BigMultiplyDivideDiscard) {
+            multiplyDivideDiscards++;
+        } else if (option instanceof ExactProduct) {
+            exactProducts++;
+        } else if (option instanceof RecyclingDiscard) {
+            recyclingDiscards++;
+        }
+    }
+
+    public void add(final SearchCounters other) {
+        tuples += other.tuples;
+        rejectedTooSmall += other.rejectedTooSmall;
+        rejectedDiscardTooLarge += other.rejectedDiscardTooLarge;
+        rejectedDivideTooLarge += other.rejectedDivideTooLarge;
+        rejectedSingleDie += other.rejectedSingleDie;
+        rejectedAboveCeiling += other.rejectedAboveCeiling;
+        scored += other.scored;
+        scoredRecycling += other.scoredRecycling;
+        rollMultiples += other.rollMultiples;
+        discards += other.discards;
+        multiplyDivideDiscards += other.multiplyDivideDiscards;
+        exactProducts += other.exactProducts;
+        recyclingDiscards += other.recyclingDiscards;
+    }
+}
@@ -0,0 +1,73 @@
+package org.pungrammer.arbitrarydiceinstructor.search;
+
+import java.util.concurrent.atomic.DoubleAdder;
+
+// Lets a running search be stopped and tells how much of all dice combinations it has covered so far.
+// A stopped search still returns the best options it found until then.
+public class SearchProgress {
+
+    private volatile boolean stopped;
+    private volatile boolean complete;
+    private final DoubleAdder covered = new DoubleAdder();
+    // Number of multisets of the current walk, set once it starts
+    private volatile double total;
+
+    public void stop() {
+        stopped = true;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    // Fraction between 0 and 1 of all dice combinations which were looked at or skipped as they can not win
+    public double getFraction() {
+        if (complete) {
+            return 1;
+        }
+        double currentTotal = total;
+        return currentTotal == 0 ? 0 : Math.min(1, covered.sum() / currentTotal);
+    }
+
+    void start(final double total) {
+        this.total = total;
+    }
+
+    void cover(final double multisets) {
+        covered.add(multisets);
+    }
+
+    void complete() {
+        complete = true;
+    }
+
+    // The walks only report progress for the first two dice of every multiset.
+    // A die at a position below which up to position more dice follow, none of them smaller than this one,
+    // covers this many multisets once it is done.
+    void coverDie(final int sideCount, final int position, final int dieIndex, final boolean walkedNextDice) {
+        if (walkedNextDice) {
+            // The next dice report themselves
+            cover(1);
+        } else {
+            cover(binomial(sideCount - dieIndex + position, position));
+        }
+    }
+
+    // All dice from this one to the largest one are skipped
+    void coverRemainingDice(final int sideCount, final int position, final int dieIndex) {
+        cover(binomial(sideCount - dieIndex + position + 1, position + 1) - 1);
+    }
+
+    // Non-empty multisets of up to maxDieCount dice
+    static double multisetCount(final int sideCount, final int maxDieCount) {
+        return binomial(sideCount + maxDieCount, maxDieCount) - 1;
+    }
+
+    private static double binomial(final int n, final int k) {
+        double result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+}
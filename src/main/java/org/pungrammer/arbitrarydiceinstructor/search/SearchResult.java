@@ -0,0 +1,99 @@
+package org.pungrammer.arbitrarydiceinstructor.search;
+
+import lombok.Data;
+import org.pungrammer.arbitrarydiceinstructor.option.Discard;
+import org.pungrammer.arbitrarydiceinstructor.option.ExactProduct;
+import org.pungrammer.arbitrarydiceinstructor.option.MultiplyDivideDiscard;
+import org.pungrammer.arbitrarydiceinstructor.option.Option;
+import org.pungrammer.arbitrarydiceinstructor.option.RecyclingDiscard;
+import org.pungrammer.arbitrarydiceinstructor.option.RollMultiple;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class SearchResult {
+
+    private int wantedDie;
+    private RollMultiple bestRollMultiple;
+    private Discard bestDiscard;
+    private MultiplyDivideDiscard bestMultiplyDivideDiscard;
+    private ExactProduct bestExactProduct;
+    private RecyclingDiscard bestRecyclingDiscard;
+
+    // Wall clock time of the whole search
+    private long searchNanos;
+    // Time all workers spent searching, summed up. Equals searchNanos if the search ran on one thread.
+    private long workNanos;
+    private int threadCount;
+    // False if the search was stopped before it looked at all dice combinations
+    private boolean exhaustive = true;
+    // Throws the MultiplyDivideDiscard of the beam enumeration needs more than the best one, 0 if it is the best.
+    // Infinite if the beam missed all of them. NaN if the beam was not compared or not used.
+    private double beamGap = Double.NaN;
+
+    // Options of one type are totally ordered, so the best one does not depend on the order they are offered in.
+    public void offer(final Option option) {
+        if (option instanceof RollMultiple) {
+            bestRollMultiple = findBestOption(bestRollMultiple, ((RollMultiple) option));
+        }
+        if (option instanceof Discard) {
+            bestDiscard = findBestOption(bestDiscard, ((Discard) option));
+        }
+        if (option instanceof MultiplyDivideDiscard) {
+            bestMultiplyDivideDiscard = findBestOption(bestMultiplyDivideDiscard, ((MultiplyDivideDiscard) option));
+        }
+        if (option instanceof ExactProduct) {
+            bestExactProduct = findBestOption(bestExactProduct, ((ExactProduct) option));
+        }
+        if (option instanceof RecyclingDiscard) {
+            bestRecyclingDiscard = findBestOption(bestRecyclingDiscard, ((RecyclingDiscard) option));
+        }
+    }
+
+    public boolean isEmpty() {
+        return bestRollMultiple == null && bestDiscard == null && bestMultiplyDivideDiscard == null
+                && bestExactProduct == null && bestRecyclingDiscard == null;
+    }
+
+    // The best option of every type which has one, in the order they are printed
+    public List<Option> getOptions() {
+        List<Option> options = new ArrayList<>();
+        for (Option option : new Option[]{bestExactProduct, bestRollMultiple, bestDiscard,
+                bestMultiplyDivideDiscard, bestRecyclingDiscard}) {
+            if (option != null) {
+                options.add(option);
+            }
+        }
+        return options;
+    }
+
+    // The uniform option with the fewest throws on average over all types. Of equally cheap options the one printed
+    // first wins. Null if there is no uniform option at all.
+    public Option getBestOption() {
+        return findCheapestOption(getOptions());
+    }
+
+    // Options which are not uniform do not roll the wanted die, however few dice they need
+    static Option findCheapestOption(final List<? extends Option> options) {
+        Option best = null;
+        for (Option option : options) {
+            if (!option.isUniform()) {
+                continue;
+            }
+            if (best == null || option.compareExpectedThrows(best) > 0) {
+                best = option;
+            }
+        }
+        return best;
+    }
+
+    private static <T extends Option> T findBestOption(T champ, T contestant) {
+        if (champ == null) {
+            champ = contestant;
+        } else if (contestant.isBetterThan(champ) > 0) {
+            champ = contestant;
+        }
+        return champ;
+    }
+}
@@ -0,0 +1,317 @@
+package org.pungrammer.arbitrarydiceinstructor.search;
+
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.config.ConfigSnapshot;
+import org.pungrammer.arbitrarydiceinstructor.dice.DiceRoll;
+import org.pungrammer.arbitrarydiceinstructor.dice.Die;
+import org.pungrammer.arbitrarydiceinstructor.option.Discard;
+import org.pungrammer.arbitrarydiceinstructor.option.ExactProduct;
+import org.pungrammer.arbitrarydiceinstructor.option.MultiplyDivideDiscard;
+import org.pungrammer.arbitrarydiceinstructor.option.RecyclingDiscard;
+import org.pungrammer.arbitrarydiceinstructor.option.RollMultiple;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Precomputed results for a range of dice, stored in a file and memory mapped for lookups.
+// The file only answers as long as the config uses the dice and max roll count it was written for.
+//
+// File layout, big endian:
+// header: magic (int), version (int), config hash (long), first die (int), last die (int), max roll count (int)
+// one record per die from first to last die:
+//   flags (byte): 1 = RollMultiple, 2 = Discard, 4 = MultiplyDivideDiscard, 8 = ExactProduct, 16 = RecyclingDiscard
+//   RollMultiple: die sides (int), number of dice (int)
+//   Discard: die sides (int)
+//   MultiplyDivideDiscard: divide by (int), discard above (long),
+//                          max roll count times: die sides (int), number of dice (byte)
+//   ExactProduct: divide by (int), max roll count times: die sides (int), number of dice (byte)
+//   RecyclingDiscard: divide by (int), discard above (long),
+//                     max roll count times: die sides (int), number of dice (byte),
+//                     RecyclingSearch.MAX_STAGES times: recycling die sides (int)
+// Parts which are not set by the flags are filled with zeros.
+public class SolutionTable {
+
+    private static final int MAGIC = 0x41444954;
+    // Version 4 ranks options by their expected throws, version 5 adds RecyclingDiscard
+    private static final int VERSION = 5;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4 + 4;
+
+    private static final byte ROLL_MULTIPLE = 1;
+    private static final byte DISCARD = 2;
+    private static final byte MULTIPLY_DIVIDE_DISCARD = 4;
+    private static final byte EXACT_PRODUCT = 8;
+    private static final byte RECYCLING_DISCARD = 16;
+
+    // Immutable, so lookups can keep using a file while another one is loaded
+    private static class Mapping {
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private final long hash;
+        private final int firstDie;
+        private final int lastDie;
+        private final int maxRollCount;
+        private final int recordSize;
+
+        Mapping(final Path path, final MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+            this.hash = buffer.getLong(8);
+            this.firstDie = buffer.getInt(16);
+            this.lastDie = buffer.getInt(20);
+            this.maxRollCount = buffer.getInt(24);
+            this.recordSize = recordSize(maxRollCount);
+        }
+    }
+
+    private final Config config;
+    private volatile Mapping mapping;
+    private volatile boolean matchesConfig;
+
+    public SolutionTable(final Config config) {
+        this.config = config;
+        config.addChangeListener(() -> {
+            Mapping current = mapping;
+            matchesConfig = current != null && current.hash == configHash(config.getSnapshot());
+        });
+    }
+
+    public void load(final Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException(String.format("%s is not a solution table.", file));
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException(String.format("%s was written by another version.", file));
+        }
+        Mapping newMapping = new Mapping(file, buffer);
+        if (newMapping.firstDie < 2 || newMapping.lastDie < newMapping.firstDie || buffer.capacity()
+                < HEADER_SIZE + ((long) newMapping.lastDie - newMapping.firstDie + 1) * newMapping.recordSize) {
+            throw new IllegalArgumentException(String.format("%s is incomplete.", file));
+        }
+
+        use(newMapping);
+    }
+
+    // A table for another config which answers from the same file, e.g. for every session of a server.
+    // The file is not mapped again, loading another file into either table does not affect the other one.
+    public SolutionTable share(final Config otherConfig) {
+        SolutionTable table = new SolutionTable(otherConfig);
+        Mapping current = mapping;
+        if (current != null) {
+            table.use(current);
+        }
+        return table;
+    }
+
+    private void use(final Mapping newMapping) {
+        mapping = newMapping;
+        matchesConfig = newMapping.hash == configHash(config.getSnapshot());
+    }
+
+    // Returns null if the file does not know this die or was written for other settings than the ones of the
+    // snapshot. The snapshot is checked rather than the config, so a calc sticks to the settings it started with.
+    public SearchResult lookup(final ConfigSnapshot snapshot, final int wantedDie) {
+        Mapping current = mapping;
+        if (current == null || wantedDie < current.firstDie || wantedDie > current.lastDie
+                || current.hash != configHash(snapshot)) {
+            return null;
+        }
+        return read(current, wantedDie);
+    }
+
+    // Writes the results of all dice in the range for the current config.
+    // The file is written next to the target and moved over it once complete. A table mapped from the target
+    // keeps the old file, truncating it in place would crash the JVM on the next lookup.
+    public static void write(final Path file, final Config config, final DiceSearch search,
+                             final int firstDie, final int lastDie) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path partial = Files.createTempFile(directory, file.getFileName().toString(), ".partial");
+        try {
+            writeTable(partial, config, search, firstDie, lastDie);
+            Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    private static void writeTable(final Path file, final Config config, final DiceSearch search,
+                                   final int firstDie, final int lastDie) throws IOException {
+        // The header and the results have to be of the same settings
+        ConfigSnapshot snapshot = config.getSnapshot();
+        int maxRollCount = snapshot.getMaxRollCount();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(configHash(snapshot));
+            out.writeInt(firstDie);
+            out.writeInt(lastDie);
+            out.writeInt(maxRollCount);
+
+            int[] wantedDice = new int[lastDie - firstDie + 1];
+            for (int i = 0; i < wantedDice.length; i++) {
+                wantedDice[i] = firstDie + i;
+            }
+            IOException[] failure = new IOException[1];
+            search.searchAll(snapshot, wantedDice, new SearchProgress(), result -> {
+                if (failure[0] == null) {
+                    try {
+                        writeRecord(out, result, maxRollCount);
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        }
+    }
+
+    public boolean isLoaded() {
+        return mapping != null;
+    }
+
+    public boolean matchesConfig() {
+        return matchesConfig;
+    }
+
+    public String getSummary() {
+        Mapping current = mapping;
+        if (current == null) {
+            return "No solution table loaded";
+        }
+        return String.format("Solution table %s answers d%d to d%d%s", current.path, current.firstDie,
+                current.lastDie, matchesConfig ? "" : ", but was written for other dice or another max roll count");
+    }
+
+    private static SearchResult read(final Mapping current, final int wantedDie) {
+        MappedByteBuffer buffer = current.buffer;
+        int position = HEADER_SIZE + (wantedDie - current.firstDie) * current.recordSize;
+        byte flags = buffer.get(position);
+
+        SearchResult result = new SearchResult();
+        result.setWantedDie(wantedDie);
+        if ((flags & ROLL_MULTIPLE) != 0) {
+            result.setBestRollMultiple(new RollMultiple(new DiceRoll(
+                    new Die(buffer.getInt(position + 1)), buffer.getInt(position + 5))));
+        }
+        if ((flags & DISCARD) != 0) {
+            result.setBestDiscard(new Discard(new Die(buffer.getInt(position + 9)), wantedDie));
+        }
+        if ((flags & MULTIPLY_DIVIDE_DISCARD) != 0) {
+            result.setBestMultiplyDivideDiscard(new MultiplyDivideDiscard(buffer.getInt(position + 13),
+                    buffer.getLong(position + 17), readRolls(buffer, position + 25, current.maxRollCount)));
+        }
+        if ((flags & EXACT_PRODUCT) != 0) {
+            int exactPosition = position + 25 + current.maxRollCount * 5;
+            result.setBestExactProduct(new ExactProduct(buffer.getInt(exactPosition),
+                    readRolls(buffer, exactPosition + 4, current.maxRollCount)));
+        }
+        if ((flags & RECYCLING_DISCARD) != 0) {
+            int recyclingPosition = position + 25 + current.maxRollCount * 10 + 4;
+            int dicePosition = recyclingPosition + 12 + current.maxRollCount * 5;
+            List<Die> recyclingDice = new ArrayList<>();
+            for (int i = 0; i < RecyclingSearch.MAX_STAGES && buffer.getInt(dicePosition + i * 4) > 0; i++) {
+                recyclingDice.add(new Die(buffer.getInt(dicePosition + i * 4)));
+            }
+            result.setBestRecyclingDiscard(new RecyclingDiscard(buffer.getInt(recyclingPosition),
+                    buffer.getLong(recyclingPosition + 4), readRolls(buffer, recyclingPosition + 12,
+                    current.maxRollCount), recyclingDice));
+        }
+        return result;
+    }
+
+    private static List<DiceRoll> readRolls(final MappedByteBuffer buffer, final int position,
+                                            final int maxRollCount) {
+        List<DiceRoll> requiredRolls = new ArrayList<>();
+        for (int i = 0; i < maxRollCount; i++) {
+            int rollPosition = position + i * 5;
+            byte numberOfDice = buffer.get(rollPosition + 4);
+            if (numberOfDice > 0) {
+                requiredRolls.add(new DiceRoll(new Die(buffer.getInt(rollPosition)), numberOfDice));
+            }
+        }
+        return requiredRolls;
+    }
+
+    private static void writeRecord(final DataOutputStream out, final SearchResult result, final int maxRollCount)
+            throws IOException {
+        RollMultiple rollMultiple = result.getBestRollMultiple();
+        Discard discard = result.getBestDiscard();
+        MultiplyDivideDiscard multiplyDivideDiscard = result.getBestMultiplyDivideDiscard();
+        ExactProduct exactProduct = result.getBestExactProduct();
+        RecyclingDiscard recyclingDiscard = result.getBestRecyclingDiscard();
+
+        byte flags = 0;
+        if (rollMultiple != null) {
+            flags |= ROLL_MULTIPLE;
+        }
+        if (discard != null) {
+            flags |= DISCARD;
+        }
+        if (multiplyDivideDiscard != null) {
+            flags |= MULTIPLY_DIVIDE_DISCARD;
+        }
+        if (exactProduct != null) {
+            flags |= EXACT_PRODUCT;
+        }
+        if (recyclingDiscard != null) {
+            flags |= RECYCLING_DISCARD;
+        }
+        out.writeByte(flags);
+
+        out.writeInt(rollMultiple == null ? 0 : rollMultiple.getRoll().getDie().getSides());
+        out.writeInt(rollMultiple == null ? 0 : rollMultiple.getRoll().getNumberOfDice());
+        out.writeInt(discard == null ? 0 : discard.getDie().getSides());
+        out.writeInt(multiplyDivideDiscard == null ? 0 : multiplyDivideDiscard.getDivideBy());
+        out.writeLong(multiplyDivideDiscard == null ? 0 : multiplyDivideDiscard.getDiscardAbove());
+        writeRolls(out, multiplyDivideDiscard == null ? List.of() : multiplyDivideDiscard.getRequiredRolls(),
+                maxRollCount);
+        out.writeInt(exactProduct == null ? 0 : exactProduct.getDivideBy());
+        writeRolls(out, exactProduct == null ? List.of() : exactProduct.getRequiredRolls(), maxRollCount);
+        out.writeInt(recyclingDiscard == null ? 0 : recyclingDiscard.getDivideBy());
+        out.writeLong(recyclingDiscard == null ? 0 : recyclingDiscard.getDiscardAbove());
+        writeRolls(out, recyclingDiscard == null ? List.of() : recyclingDiscard.getRequiredRolls(), maxRollCount);
+        List<Die> recyclingDice = recyclingDiscard == null ? List.of() : recyclingDiscard.getRecyclingDice();
+        for (int i = 0; i < RecyclingSearch.MAX_STAGES; i++) {
+            out.writeInt(i < recyclingDice.size() ? recyclingDice.get(i).getSides() : 0);
+        }
+    }
+
+    private static void writeRolls(final DataOutputStream out, final List<DiceRoll> requiredRolls,
+                                   final int maxRollCount) throws IOException {
+        for (int i = 0; i < maxRollCount; i++) {
+            out.writeInt(i < requiredRolls.size() ? requiredRolls.get(i).getDie().getSides() : 0);
+            out.writeByte(i < requiredRolls.size() ? requiredRolls.get(i).getNumberOfDice() : 0);
+        }
+    }
+
+    private static int recordSize(final int maxRollCount) {
+        return 1 + 4 + 4 + 4 + 4 + 8 + maxRollCount * (4 + 1) + 4 + maxRollCount * (4 + 1)
+                + 4 + 8 + maxRollCount * (4 + 1) + RecyclingSearch.MAX_STAGES * 4;
+    }
+
+    // FNV-1a over everything the results depend on
+    private static long configHash(final ConfigSnapshot snapshot) {
+        long hash = 0xcbf29ce484222325L;
+        for (int die : snapshot.getSides()) {
+            hash = (hash ^ die) * 0x100000001b3L;
+        }
+        hash = (hash ^ -1) * 0x100000001b3L;
+        hash = (hash ^ snapshot.getMaxRollCount()) * 0x100000001b3L;
+        hash = (hash ^ snapshot.getProductCeiling()) * 0x100000001b3L;
+        return hash;
+    }
+}
@@ -0,0 +1,61 @@
+package org.pungrammer.arbitrarydiceinstructor.search;
+
+import org.pungrammer.arbitrarydiceinstructor.option.Option;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// The best options of one type seen so far, at most a fixed number of them.
+// Options are offered as they are found, so the memory does not grow with the number of options a search looks at.
+public class TopOptions<T extends Option> {
+
+    private final int capacity;
+    // Worst option first, so it is the one to drop when a better one comes in
+    private final PriorityQueue<T> options;
+
+    public TopOptions(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("At least one option needs to be kept.");
+        }
+        this.capacity = capacity;
+        this.options = new PriorityQueue<>(capacity, (a, b) -> a.isBetterThan(b));
+    }
+
+    // Returns false if the option was not kept
+    public boolean offer(final T option) {
+        if (options.contains(option)) {
+            return false;
+        }
+        if (options.size() < capacity) {
+            options.add(option);
+            return true;
+        }
+        if (option.isBetterThan(options.peek()) > 0) {
+            options.poll();
+            options.add(option);
+            return true;
+        }
+        return false;
+    }
+
+    public boolean isFull() {
+        return options.size() == capacity;
+    }
+
+    // Null until the first option was offered
+    public T getWorst() {
+        return options.peek();
+    }
+
+    public int size() {
+        return options.size();
+    }
+
+    // Best option first
+    public List<T> getOptions() {
+        List<T> sorted = new ArrayList<>(options);
+        sorted.sort((a, b) -> b.isBetterThan(a));
+        return sorted;
+    }
+}
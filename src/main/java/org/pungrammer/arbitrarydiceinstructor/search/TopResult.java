@@ -0,0 +1,74 @@
+package org.pungrammer.arbitrarydiceinstructor.search;
+
+import lombok.Data;
+import org.pungrammer.arbitrarydiceinstructor.option.Discard;
+import org.pungrammer.arbitrarydiceinstructor.option.ExactProduct;
+import org.pungrammer.arbitrarydiceinstructor.option.MultiplyDivideDiscard;
+import org.pungrammer.arbitrarydiceinstructor.option.Option;
+import org.pungrammer.arbitrarydiceinstructor.option.RecyclingDiscard;
+import org.pungrammer.arbitrarydiceinstructor.option.RollMultiple;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The best options of every type for one wanted die, at most count of each
+@Data
+public class TopResult {
+
+    private final int wantedDie;
+    private final int count;
+    private final TopOptions<RollMultiple> rollMultiples;
+    private final TopOptions<Discard> discards;
+    private final TopOptions<MultiplyDivideDiscard> multiplyDivideDiscards;
+    private final TopOptions<ExactProduct> exactProducts;
+    private final TopOptions<RecyclingDiscard> recyclingDiscards;
+
+    private long searchNanos;
+    // False if the search was stopped before it looked at all dice combinations
+    private boolean exhaustive = true;
+
+    public TopResult(final int wantedDie, final int count) {
+        this.wantedDie = wantedDie;
+        this.count = count;
+        this.rollMultiples = new TopOptions<>(count);
+        this.discards = new TopOptions<>(count);
+        this.multiplyDivideDiscards = new TopOptions<>(count);
+        this.exactProducts = new TopOptions<>(count);
+        this.recyclingDiscards = new TopOptions<>(count);
+    }
+
+    public void offer(final Option option) {
+        if (option instanceof RollMultiple) {
+            rollMultiples.offer((RollMultiple) option);
+        }
+        if (option instanceof Discard) {
+            discards.offer((Discard) option);
+        }
+        if (option instanceof MultiplyDivideDiscard) {
+            multiplyDivideDiscards.offer((MultiplyDivideDiscard) option);
+        }
+        if (option instanceof ExactProduct) {
+            exactProducts.offer((ExactProduct) option);
+        }
+        if (option instanceof RecyclingDiscard) {
+            recyclingDiscards.offer((RecyclingDiscard) option);
+        }
+    }
+
+    // Cheapest of the best options of every type, see SearchResult.getBestOption()
+    public Option getBestOption() {
+        List<Option> best = new ArrayList<>();
+        for (TopOptions<? extends Option> options : List.of(exactProducts, rollMultiples, discards,
+                multiplyDivideDiscards, recyclingDiscards)) {
+            if (options.size() > 0) {
+                best.add(options.getOptions().get(0));
+            }
+        }
+        return SearchResult.findCheapestOption(best);
+    }
+
+    public boolean isEmpty() {
+        return rollMultiples.size() == 0 && discards.size() == 0 && multiplyDivideDiscards.size() == 0
+                && exactProducts.size() == 0 && recyclingDiscards.size() == 0;
+    }
+}
@@ -0,0 +1,143 @@
+package org.pungrammer.arbitrarydiceinstructor.server;
+
+import org.pungrammer.arbitrarydiceinstructor.command.CommandParser;
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.search.InFlightSearches;
+import org.pungrammer.arbitrarydiceinstructor.search.SolutionTable;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Speaks the command language of the console to clients on this machine, one line per command.
+// Every connection is a session with its own config, cache and statistics. Like the console,
+// the server writes the prompt "$: " once it is ready for the next command.
+public class DiceServer {
+
+    static final String PROMPT = "$: ";
+
+    private final int port;
+    private final InFlightSearches inFlightSearches = new InFlightSearches();
+    // Mapped once and shared by all sessions, null if the sessions search everything
+    private SolutionTable solutionTable;
+    private ServerSocket serverSocket;
+
+    // Port 0 picks any free port
+    public DiceServer(final int port) {
+        this.port = port;
+    }
+
+    // Every session answers calc from this file written by export, as long as it uses the dice it was written for.
+    // Has to be loaded before serve().
+    public void loadTable(final Path file) throws IOException {
+        SolutionTable table = new SolutionTable(new Config());
+        table.load(file);
+        solutionTable = table;
+    }
+
+    public String getTableSummary() {
+        return solutionTable == null ? new SolutionTable(new Config()).getSummary() : solutionTable.getSummary();
+    }
+
+    // Only accepts connections from this machine
+    public void bind() throws IOException {
+        serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+    }
+
+    // Accepts connections until the server is closed
+    public void serve() {
+        ExecutorService sessions = newSessionExecutor();
+        try {
+            while (!serverSocket.isClosed()) {
+                Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (IOException e) {
+                    // Closed by close()
+                    break;
+                }
+                sessions.execute(() -> serve(socket));
+            }
+        } finally {
+            sessions.shutdown();
+        }
+    }
+
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getSharedSearches() {
+        return inFlightSearches.getSharedSearches();
+    }
+
+    private void serve(final Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintStream out = new PrintStream(
+                     new BufferedOutputStream(socket.getOutputStream()), false, StandardCharsets.UTF_8);
+             CommandParser cp = createSession()) {
+            cp.setOutput(out);
+
+            out.println("Enter help to show help. Enter exit to end the session.");
+            while (true) {
+                out.print(PROMPT);
+                out.flush();
+                String rawCommand = in.readLine();
+                if (rawCommand == null || rawCommand.equals("exit")) {
+                    return;
+                }
+                if (rawCommand.isBlank()) {
+                    continue;
+                }
+                try {
+                    cp.execute(rawCommand);
+                } catch (IllegalArgumentException e) {
+                    out.println(e.getMessage());
+                } catch (RuntimeException e) {
+                    // A failing command must not end the session of the client
+                    out.println("The command failed: " + e);
+                }
+            }
+        } catch (IOException e) {
+            // The client went away, the session ends with it
+        }
+    }
+
+    // The config, cache, index and threads of a session are released once its parser is closed
+    private CommandParser createSession() {
+        Config config = new Config();
+        // Sessions already run in parallel, so calc uses a single thread unless the session asks for more
+        config.setThreadCount(1);
+        return new CommandParser(config, solutionTable == null ? new SolutionTable(config)
+                : solutionTable.share(config), inFlightSearches);
+    }
+
+    // One thread per session. Virtual threads if the JVM has them (Java 21 and later).
+    // The project builds for Java 17, so they are looked up at runtime and plain threads are used otherwise.
+    static ExecutorService newSessionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "session");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
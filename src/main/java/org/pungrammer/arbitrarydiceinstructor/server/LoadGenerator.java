@@ -0,0 +1,131 @@
+package org.pungrammer.arbitrarydiceinstructor.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+// Opens a number of sessions to a server on this machine and lets all of them send the same calcs one after
+// the other, so identical calcs of different sessions arrive at about the same time.
+// Reports the throughput and the latencies as seen by the clients. Every latency is kept, so the percentiles
+// are exact.
+public class LoadGenerator {
+
+    // Above the dice answered by the product index, so every calc has to search
+    private static final int FIRST_WANTED_DIE = 100_003;
+
+    private final int port;
+    private final int clients;
+    private final int requestsPerClient;
+    // Latencies of every client, in the order of its requests. Written by the client only.
+    private final long[][] latencies;
+    private final int[] completedRequests;
+    private final LongAdder failures = new LongAdder();
+
+    public LoadGenerator(final int port, final int clients, final int requestsPerClient) {
+        this.port = port;
+        this.clients = clients;
+        this.requestsPerClient = requestsPerClient;
+        this.latencies = new long[clients][requestsPerClient];
+        this.completedRequests = new int[clients];
+    }
+
+    public void run() throws InterruptedException {
+        ExecutorService executor = DiceServer.newSessionExecutor();
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> sessions = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                int client = i;
+                sessions.add(executor.submit(() -> runClient(client)));
+            }
+            for (Future<?> session : sessions) {
+                try {
+                    session.get();
+                } catch (ExecutionException e) {
+                    System.err.println("Session failed: " + e.getCause().getMessage());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long nanos = System.nanoTime() - start;
+
+        // Future.get() returned for every client, so all of their latencies are visible here
+        long[] sorted = new long[Arrays.stream(completedRequests).sum()];
+        int requests = 0;
+        for (int i = 0; i < clients; i++) {
+            System.arraycopy(latencies[i], 0, sorted, requests, completedRequests[i]);
+            requests += completedRequests[i];
+        }
+        Arrays.sort(sorted);
+        System.out.printf("%d requests of %d clients in %dms: %.1f requests/s, %d failed%n" +
+                        "Latency: mean %s, p50 %s, p90 %s, p99 %s, max %s%n",
+                requests, clients, nanos / 1_000_000, requests / (nanos / 1_000_000_000.0), failures.sum(),
+                millis(requests == 0 ? 0 : Arrays.stream(sorted).sum() / requests), millis(percentile(sorted, 50)),
+                millis(percentile(sorted, 90)), millis(percentile(sorted, 99)),
+                millis(requests == 0 ? 0 : sorted[requests - 1]));
+    }
+
+    // Nearest rank: the smallest latency which at least this percentage of the requests did not exceed
+    private static long percentile(final long[] sorted, final double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private Void runClient(final int client) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintStream out = new PrintStream(socket.getOutputStream(), false, StandardCharsets.UTF_8)) {
+            readResponse(in);
+            for (int i = 0; i < requestsPerClient; i++) {
+                long start = System.nanoTime();
+                out.println("calc " + (FIRST_WANTED_DIE + i));
+                out.flush();
+                String response = readResponse(in);
+                latencies[client][i] = System.nanoTime() - start;
+                completedRequests[client] = i + 1;
+                // Every command ends with its timing line, errors do not
+                if (!response.contains("command took")) {
+                    failures.increment();
+                }
+            }
+            out.println("exit");
+            out.flush();
+        }
+        return null;
+    }
+
+    // Everything up to the next prompt
+    private static String readResponse(final BufferedReader in) throws IOException {
+        StringBuilder response = new StringBuilder();
+        int promptLength = DiceServer.PROMPT.length();
+        while (response.length() < promptLength
+                || !response.substring(response.length() - promptLength).equals(DiceServer.PROMPT)) {
+            int next = in.read();
+            if (next < 0) {
+                throw new IOException("The server closed the connection.");
+            }
+            response.append((char) next);
+        }
+        return response.substring(0, response.length() - promptLength);
+    }
+
+    private static String millis(final long nanos) {
+        return String.format("%.3fms", nanos / 1_000_000.0);
+    }
+}
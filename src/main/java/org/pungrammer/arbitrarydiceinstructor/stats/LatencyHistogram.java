@@ -0,0 +1,48 @@
+package org.pungrammer.arbitrarydiceinstructor.stats;
+
+// Durations in buckets of powers of two nanoseconds.
+// Percentiles are the upper end of the bucket they fall into, so they are at most twice the real value.
+public class LatencyHistogram {
+
+    private final long[] buckets = new long[64];
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    public synchronized void record(final long nanos) {
+        buckets[64 - Long.numberOfLeadingZeros(Math.max(0, nanos))]++;
+        count++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public synchronized long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public synchronized long getMeanNanos() {
+        return count == 0 ? 0 : totalNanos / count;
+    }
+
+    // Upper bound of the given percentile, between 0 and 100
+    public synchronized long getPercentileNanos(final double percentile) {
+        long rank = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank && seen > 0) {
+                // Bucket i holds durations below 2^i nanoseconds
+                return Math.min(maxNanos, i == 0 ? 0 : (1L << i) - 1);
+            }
+        }
+        return maxNanos;
+    }
+}
@@ -0,0 +1,72 @@
+package org.pungrammer.arbitrarydiceinstructor.stats;
+
+import org.pungrammer.arbitrarydiceinstructor.search.SearchCounters;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// Latencies of all commands and the counters of all searches since the start or the last reset
+public class Statistics {
+
+    private final Map<String, LatencyHistogram> latencies = new TreeMap<>();
+    private SearchCounters searchCounters = new SearchCounters();
+    private long searches;
+
+    public synchronized void recordLatency(final String commandWord, final long nanos) {
+        latencies.computeIfAbsent(commandWord, ignored -> new LatencyHistogram()).record(nanos);
+    }
+
+    public synchronized void recordSearch(final SearchCounters counters) {
+        searchCounters.add(counters);
+        searches++;
+    }
+
+    public synchronized void reset() {
+        latencies.clear();
+        searchCounters = new SearchCounters();
+        searches = 0;
+    }
+
+    // Sorted by command word
+    public synchronized Map<String, LatencyHistogram> getLatencies() {
+        return new TreeMap<>(latencies);
+    }
+
+    public synchronized SearchCounters getSearchCounters() {
+        SearchCounters copy = new SearchCounters();
+        copy.add(searchCounters);
+        return copy;
+    }
+
+    public synchronized long getSearches() {
+        return searches;
+    }
+
+    // Everything as a single JSON object, latencies in nanoseconds
+    public synchronized String toJson() {
+        StringBuilder sb = new StringBuilder("{\"latencies\":{");
+        String separator = "";
+        for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            sb.append(separator).append(String.format("\"%s\":{\"count\":%d,\"totalNanos\":%d,\"meanNanos\":%d," +
+                            "\"p50Nanos\":%d,\"p90Nanos\":%d,\"p99Nanos\":%d,\"maxNanos\":%d}",
+                    entry.getKey(), histogram.getCount(), histogram.getTotalNanos(), histogram.getMeanNanos(),
+                    histogram.getPercentileNanos(50), histogram.getPercentileNanos(90),
+                    histogram.getPercentileNanos(99), histogram.getMaxNanos()));
+            separator = ",";
+        }
+        sb.append(String.format("},\"search\":{\"searches\":%d,\"tuples\":%d,\"rejectedTooSmall\":%d," +
+                        "\"rejectedDiscardTooLarge\":%d,\"rejectedDivideTooLarge\":%d,\"rejectedSingleDie\":%d," +
+                        "\"rejectedAboveCeiling\":%d,\"scored\":%d,\"scoredRecycling\":%d,\"rollMultiples\":%d," +
+                        "\"discards\":%d,\"multiplyDivideDiscards\":%d," +
+                        "\"exactProducts\":%d,\"recyclingDiscards\":%d}}",
+                searches, searchCounters.getTuples(), searchCounters.getRejectedTooSmall(),
+                searchCounters.getRejectedDiscardTooLarge(), searchCounters.getRejectedDivideTooLarge(),
+                searchCounters.getRejectedSingleDie(), searchCounters.getRejectedAboveCeiling(),
+                searchCounters.getScored(), searchCounters.getScoredRecycling(),
+                searchCounters.getRollMultiples(), searchCounters.getDiscards(),
+                searchCounters.getMultiplyDivideDiscards(),
+                searchCounters.getExactProducts(), searchCounters.getRecyclingDiscards()));
+        return sb.toString();
+    }
+}
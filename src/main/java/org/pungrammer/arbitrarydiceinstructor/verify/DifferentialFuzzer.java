@@ -0,0 +1,334 @@
+package org.pungrammer.arbitrarydiceinstructor.verify;
+
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+import org.pungrammer.arbitrarydiceinstructor.config.ConfigSnapshot;
+import org.pungrammer.arbitrarydiceinstructor.config.EnumerationMode;
+import org.pungrammer.arbitrarydiceinstructor.option.MultiplyDivideDiscard;
+import org.pungrammer.arbitrarydiceinstructor.option.Option;
+import org.pungrammer.arbitrarydiceinstructor.search.DiceSearch;
+import org.pungrammer.arbitrarydiceinstructor.search.ProductIndex;
+import org.pungrammer.arbitrarydiceinstructor.search.SearchCache;
+import org.pungrammer.arbitrarydiceinstructor.search.SearchProgress;
+import org.pungrammer.arbitrarydiceinstructor.search.SearchResult;
+import org.pungrammer.arbitrarydiceinstructor.search.SolutionTable;
+import org.pungrammer.arbitrarydiceinstructor.search.TopOptions;
+import org.pungrammer.arbitrarydiceinstructor.search.TopResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Searches random wanted dice with random dice and max roll counts in every enumeration and compares the results
+// to the ones of the odometer, which simply tries every permutation. The dice and the max roll count are set
+// through the commands, so unsorted dice, duplicates and spaces go the same way as the ones a user types.
+// All engines have to find options of the same cost for every type, except the beam which may miss the best
+// MultiplyDivideDiscard, but must never beat the odometer. Besides the enumerations it checks results which were
+// extended by the SearchCache after the dice changed, and results read back from a SolutionTable.
+// Every search is timed, so a run also shows whether an engine got slower. DifferentialFuzzerTest fails on any
+// mismatch, the fuzz command only shows the timings.
+public class DifferentialFuzzer implements AutoCloseable {
+
+    // Small enough for the odometer to stay fast, and the index covers all of them
+    private static final int LARGEST_WANTED_DIE = 5000;
+    private static final int LARGEST_DIE = 120;
+    private static final int MAX_DIE_COUNT = 7;
+    private static final int MAX_ROLL_COUNT = 5;
+    private static final int[] COMMON_DICE = {2, 3, 4, 6, 8, 10, 12, 20, 100};
+    private static final String[] SEPARATORS = {",", ", ", " ,", " , "};
+    // The engines add up the same probabilities in another order
+    private static final double TOLERANCE = 1e-9;
+
+    private static final String BATCH = "batch";
+    private static final String TOP = "top";
+    private static final String EXTEND = "extend";
+    private static final String TABLE = "table";
+
+    private final Config config;
+    private final Consumer<String> commands;
+    private final DiceSearch search;
+    private final SearchCache cache;
+    private final SolutionTable table;
+    private final Path tableFile;
+    private final long seed;
+    private final SplittableRandom random;
+
+    // The config must not be used by anything else while the fuzzer runs, it switches the enumeration all the time.
+    // Commands are executed against the same config.
+    public DifferentialFuzzer(final Config config, final Consumer<String> commands, final long seed) {
+        this.config = config;
+        this.commands = commands;
+        this.search = new DiceSearch(config, new ProductIndex(config, 11 * LARGEST_WANTED_DIE));
+        this.cache = new SearchCache(config, 1);
+        this.table = new SolutionTable(config);
+        try {
+            this.tableFile = Files.createTempFile("fuzz", ".table");
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to create a file for the solution table: " + e.getMessage());
+        }
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+    }
+
+    public FuzzReport run(final int cases) {
+        FuzzReport report = new FuzzReport(seed);
+        for (int i = 0; i < cases; i++) {
+            runCase(report);
+        }
+        return report;
+    }
+
+    @Override
+    public void close() {
+        search.close();
+        try {
+            Files.deleteIfExists(tableFile);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(String.format("Unable to delete %s: %s", tableFile, e.getMessage()));
+        }
+    }
+
+    private void runCase(final FuzzReport report) {
+        String dice = randomDice();
+        int maxRollCount = 1 + random.nextInt(MAX_ROLL_COUNT);
+        commands.accept("setDice " + dice);
+        commands.accept("setMaxRollCount " + maxRollCount);
+        int wantedDie = randomWantedDie(config.getSnapshot().getSides());
+        String setup = String.format("setDice %s; setMaxRollCount %d", dice, maxRollCount);
+        report.setCases(report.getCases() + 1);
+
+        List<Option> reference = searchWith(report, EnumerationMode.ODOMETER, wantedDie);
+
+        for (EnumerationMode mode : new EnumerationMode[]{EnumerationMode.MULTISET, EnumerationMode.BOUNDED,
+                EnumerationMode.INDEXED}) {
+            compare(report, engineOf(mode), reference, searchWith(report, mode, wantedDie),
+                    String.format("%s; setEnumeration %s; calc %d", setup, engineOf(mode), wantedDie));
+        }
+        compareBeam(report, reference, searchWith(report, EnumerationMode.BEAM, wantedDie),
+                String.format("%s; setEnumeration beam; calc %d", setup, wantedDie));
+
+        List<Option> batch = new ArrayList<>();
+        long start = System.nanoTime();
+        search.searchAll(new int[]{wantedDie}, result -> batch.addAll(result.getOptions()));
+        report.record(BATCH, System.nanoTime() - start);
+        compare(report, BATCH, reference, batch,
+                String.format("%s; calc %d..%d", setup, wantedDie, wantedDie));
+
+        start = System.nanoTime();
+        TopResult top = search.searchTop(config.getSnapshot(), wantedDie, 1, new SearchProgress());
+        report.record(TOP, System.nanoTime() - start);
+        compare(report, TOP, reference, bestOptions(top),
+                String.format("%s; calc %d top 1", setup, wantedDie));
+
+        start = System.nanoTime();
+        SearchResult fromTable = searchTable(wantedDie);
+        report.record(TABLE, System.nanoTime() - start);
+        compare(report, TABLE, reference, fromTable.getOptions(),
+                String.format("%s; export %d..%d fuzz.table; calc %d", setup, wantedDie, wantedDie, wantedDie));
+
+        compareExtended(report, reference, dice, maxRollCount, wantedDie);
+    }
+
+    // Searches with other dice first, some of the dice left out and sometimes another die added, and lets the
+    // SearchCache extend that result to the dice of the case
+    private void compareExtended(final FuzzReport report, final List<Option> reference, final String dice,
+                                 final int maxRollCount, final int wantedDie) {
+        List<Integer> caseDice = config.getSnapshot().getAvailableDice();
+        List<Integer> earlierDice = new ArrayList<>();
+        for (int die : caseDice) {
+            if (random.nextInt(3) > 0) {
+                earlierDice.add(die);
+            }
+        }
+        if (earlierDice.size() == caseDice.size()) {
+            earlierDice.remove(random.nextInt(earlierDice.size()));
+        }
+        int extraDie = 0;
+        if (earlierDice.isEmpty() || random.nextBoolean()) {
+            extraDie = 2 + random.nextInt(LARGEST_DIE - 1);
+            if (!caseDice.contains(extraDie)) {
+                earlierDice.add(extraDie);
+            } else {
+                extraDie = 0;
+            }
+        }
+        if (earlierDice.isEmpty()) {
+            return;
+        }
+        String earlier = earlierDice.stream().map(String::valueOf).collect(Collectors.joining(", "));
+        EnumerationMode mode = random.nextBoolean() ? EnumerationMode.MULTISET : EnumerationMode.BOUNDED;
+
+        cache.clear();
+        commands.accept("setDice " + earlier);
+        config.setEnumerationMode(mode);
+        ConfigSnapshot earlierSnapshot = config.getSnapshot();
+        cache.put(earlierSnapshot, wantedDie, search.search(earlierSnapshot, wantedDie, new SearchProgress()));
+        commands.accept("setDice " + dice);
+        long start = System.nanoTime();
+        SearchResult extended = cache.get(config.getSnapshot(), wantedDie);
+        report.record(EXTEND, System.nanoTime() - start);
+        // Results rolling a die which was removed are dropped, nothing else may be
+        if (extended == null && extraDie != 0) {
+            return;
+        }
+        compare(report, EXTEND, reference, extended == null ? List.of() : extended.getOptions(),
+                String.format("setDice %s; setMaxRollCount %d; setEnumeration %s; calc %d; setDice %s; calc %d",
+                        earlier, maxRollCount, engineOf(mode), wantedDie, dice, wantedDie));
+    }
+
+    private SearchResult searchTable(final int wantedDie) {
+        try {
+            SolutionTable.write(tableFile, config, search, wantedDie, wantedDie);
+            table.load(tableFile);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(String.format("Unable to export to %s: %s", tableFile, e.getMessage()));
+        }
+        return table.lookup(config.getSnapshot(), wantedDie);
+    }
+
+    private List<Option> searchWith(final FuzzReport report, final EnumerationMode mode, final int wantedDie) {
+        config.setEnumerationMode(mode);
+        ConfigSnapshot snapshot = config.getSnapshot();
+        long start = System.nanoTime();
+        SearchResult result = search.search(snapshot, wantedDie, new SearchProgress());
+        report.record(engineOf(mode), System.nanoTime() - start);
+        return result.getOptions();
+    }
+
+    private static List<Option> bestOptions(final TopResult top) {
+        List<Option> options = new ArrayList<>();
+        for (TopOptions<? extends Option> topOptions : List.of(top.getExactProducts(), top.getRollMultiples(),
+                top.getDiscards(), top.getMultiplyDivideDiscards(), top.getRecyclingDiscards())) {
+            if (topOptions.size() > 0) {
+                options.add(topOptions.getOptions().get(0));
+            }
+        }
+        return options;
+    }
+
+    private static void compare(final FuzzReport report, final String engine, final List<Option> reference,
+                                final List<Option> options, final String reproduction) {
+        Map<Class<?>, Option> referenceByType = byType(reference);
+        Map<Class<?>, Option> optionsByType = byType(options);
+        Set<Class<?>> types = new LinkedHashSet<>(referenceByType.keySet());
+        types.addAll(optionsByType.keySet());
+        for (Class<?> type : types) {
+            Option expected = referenceByType.get(type);
+            Option actual = optionsByType.get(type);
+            report.setComparisons(report.getComparisons() + 1);
+            if (expected == null || actual == null
+                    || !sameThrows(expected.getExpectedThrows(), actual.getExpectedThrows())) {
+                report.addMismatch(describe(engine, type, expected, actual, reproduction));
+            }
+        }
+    }
+
+    // All types but MultiplyDivideDiscard have to match, that one may only be worse
+    private static void compareBeam(final FuzzReport report, final List<Option> reference, final List<Option> beam,
+                                    final String reproduction) {
+        List<Option> withoutCompoundDice = beam.stream().filter(option -> !(option instanceof MultiplyDivideDiscard))
+                .collect(Collectors.toList());
+        withoutCompoundDice.addAll(reference.stream().filter(option -> option instanceof MultiplyDivideDiscard)
+                .collect(Collectors.toList()));
+        compare(report, engineOf(EnumerationMode.BEAM), reference, withoutCompoundDice, reproduction);
+
+        MultiplyDivideDiscard best = findOption(reference, MultiplyDivideDiscard.class);
+        MultiplyDivideDiscard found = findOption(beam, MultiplyDivideDiscard.class);
+        if (best == null) {
+            if (found != null) {
+                report.setComparisons(report.getComparisons() + 1);
+                report.addMismatch(describe(engineOf(EnumerationMode.BEAM), MultiplyDivideDiscard.class, null, found,
+                        reproduction));
+            }
+            return;
+        }
+        report.setBeamCompared(report.getBeamCompared() + 1);
+        if (found == null) {
+            return;
+        }
+        report.setComparisons(report.getComparisons() + 1);
+        if (sameThrows(best.getExpectedThrows(), found.getExpectedThrows())) {
+            report.setBeamBestFound(report.getBeamBestFound() + 1);
+        } else if (found.getExpectedThrows() < best.getExpectedThrows()) {
+            report.addMismatch(describe(engineOf(EnumerationMode.BEAM), MultiplyDivideDiscard.class, best, found,
+                    reproduction));
+        }
+    }
+
+    private static Map<Class<?>, Option> byType(final List<Option> options) {
+        Map<Class<?>, Option> byType = new LinkedHashMap<>();
+        options.forEach(option -> byType.put(option.getClass(), option));
+        return byType;
+    }
+
+    private static <T extends Option> T findOption(final List<Option> options, final Class<T> type) {
+        for (Option option : options) {
+            if (option.getClass() == type) {
+                return type.cast(option);
+            }
+        }
+        return null;
+    }
+
+    private static boolean sameThrows(final double expected, final double actual) {
+        return Math.abs(expected - actual) <= TOLERANCE * Math.max(1, Math.abs(expected));
+    }
+
+    private static String describe(final String engine, final Class<?> type, final Option expected,
+                                   final Option actual, final String reproduction) {
+        return String.format("%s %s: %s instead of %s (%s)", engine, type.getSimpleName(), throwsOf(actual),
+                throwsOf(expected), reproduction);
+    }
+
+    private static String throwsOf(final Option option) {
+        return option == null ? "none" : String.format("%.9f", option.getExpectedThrows());
+    }
+
+    private static String engineOf(final EnumerationMode mode) {
+        return mode.name().toLowerCase(Locale.ROOT);
+    }
+
+    // Mostly the usual dice, in any order, sometimes twice
+    private String randomDice() {
+        int dieCount = 1 + random.nextInt(MAX_DIE_COUNT);
+        List<Integer> dice = new ArrayList<>();
+        for (int i = 0; i < dieCount; i++) {
+            if (!dice.isEmpty() && random.nextInt(6) == 0) {
+                dice.add(dice.get(random.nextInt(dice.size())));
+            } else if (random.nextInt(5) < 3) {
+                dice.add(COMMON_DICE[random.nextInt(COMMON_DICE.length)]);
+            } else {
+                dice.add(2 + random.nextInt(LARGEST_DIE - 1));
+            }
+        }
+        String separator = SEPARATORS[random.nextInt(SEPARATORS.length)];
+        return dice.stream().map(String::valueOf).collect(Collectors.joining(separator));
+    }
+
+    // Small dice, any dice, and dice close to products of the available ones, as those are the interesting ones
+    private int randomWantedDie(final int[] sides) {
+        int kind = random.nextInt(10);
+        if (kind < 4) {
+            return 2 + random.nextInt(99);
+        }
+        if (kind < 7) {
+            return 2 + random.nextInt(LARGEST_WANTED_DIE - 1);
+        }
+        long product = 1;
+        int factors = 1 + random.nextInt(3);
+        for (int i = 0; i < factors; i++) {
+            product *= sides[random.nextInt(sides.length)];
+        }
+        long wantedDie = product + random.nextInt(3) - 1;
+        return (int) Math.max(2, Math.min(LARGEST_WANTED_DIE, wantedDie));
+    }
+}
@@ -0,0 +1,44 @@
+package org.pungrammer.arbitrarydiceinstructor.verify;
+
+import lombok.Data;
+import org.pungrammer.arbitrarydiceinstructor.stats.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Outcome of a run of the DifferentialFuzzer
+@Data
+public class FuzzReport {
+
+    // Only the first mismatches are kept, one bug usually shows up in many cases
+    private static final int MAX_MISMATCHES_KEPT = 20;
+
+    private final long seed;
+    private int cases;
+    // Best options of one type compared to the ones of the odometer
+    private int comparisons;
+    private int mismatchCount;
+    private final List<String> mismatches = new ArrayList<>();
+    // Dice for which the odometer found a MultiplyDivideDiscard, and how often the beam found one as good
+    private int beamCompared;
+    private int beamBestFound;
+    // Every search of every engine, in the order the engines run
+    private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+
+    void record(final String engine, final long nanos) {
+        latencies.computeIfAbsent(engine, key -> new LatencyHistogram()).record(nanos);
+    }
+
+    void addMismatch(final String mismatch) {
+        mismatchCount++;
+        if (mismatches.size() < MAX_MISMATCHES_KEPT) {
+            mismatches.add(mismatch);
+        }
+    }
+
+    public boolean isPassed() {
+        return mismatchCount == 0;
+    }
+}
@@ -0,0 +1,185 @@
+package org.pungrammer.arbitrarydiceinstructor.verify;
+
+import org.pungrammer.arbitrarydiceinstructor.option.Recipe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Follows the instructions of an option many times with simulated dice and checks that every side of the
+// wanted die comes up equally often.
+// Every thread rolls with its own SplittableRandom and counts into its own array, nothing is allocated per roll.
+public class MonteCarloVerifier {
+
+    // A p-value below this rejects the die as not uniform
+    static final double SIGNIFICANCE = 0.001;
+    // The chi-square test needs this many results per side to be meaningful
+    public static final int MIN_ROLLS_PER_SIDE = 5;
+
+    private final int threadCount;
+    private final SplittableRandom random;
+
+    public MonteCarloVerifier(final int threadCount, final long seed) {
+        this.threadCount = threadCount;
+        this.random = new SplittableRandom(seed);
+    }
+
+    public Verification verify(final Recipe recipe, final int wantedDie, final long rolls) {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        long[] counts = new long[wantedDie + 1];
+        long discarded = 0;
+        long outsideRange = 0;
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                // The remaining rolls are spread over the first threads
+                long threadRolls = rolls / threadCount + (i < rolls % threadCount ? 1 : 0);
+                SplittableRandom threadRandom = random.split();
+                futures.add(executor.submit(() -> roll(recipe, wantedDie, threadRolls, threadRandom)));
+            }
+            for (Future<long[]> future : futures) {
+                long[] threadCounts = future.get();
+                for (int side = 1; side <= wantedDie; side++) {
+                    counts[side] += threadCounts[side];
+                }
+                discarded += threadCounts[0];
+                outsideRange += threadCounts[wantedDie + 1];
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException("The verification was interrupted.");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long kept = rolls - discarded - outsideRange;
+        double expected = ((double) kept) / wantedDie;
+        double chiSquare = 0;
+        for (int side = 1; side <= wantedDie; side++) {
+            double difference = counts[side] - expected;
+            chiSquare += expected == 0 ? 0 : difference * difference / expected;
+        }
+        int degreesOfFreedom = wantedDie - 1;
+        return new Verification(wantedDie, rolls, discarded, outsideRange, recipe.getDiscardProbability(),
+                chiSquare, degreesOfFreedom, chiSquarePValue(chiSquare, degreesOfFreedom),
+                System.nanoTime() - start, threadCount);
+    }
+
+    // Index 0 counts the discarded results, the last index the ones outside of the wanted die
+    private static long[] roll(final Recipe recipe, final int wantedDie, final long rolls,
+                               final SplittableRandom random) {
+        int[] dice = recipe.getDice();
+        long[] factors = recipe.getFactors();
+        long offset = recipe.getOffset();
+        long discardAbove = recipe.getDiscardAbove();
+        long divideBy = recipe.getDivideBy();
+        int[] recyclingDice = recipe.getRecyclingDice();
+        long[] recyclingKeep = recipe.getRecyclingKeep();
+        long[] counts = new long[wantedDie + 2];
+        for (long i = 0; i < rolls; i++) {
+            long value = offset;
+            for (int die = 0; die < dice.length; die++) {
+                value += factors[die] * (random.nextInt(dice[die]) + 1);
+            }
+            long keep = discardAbove;
+            long stageDivideBy = divideBy;
+            // The part of a discarded result above the kept ones is the upper digit of the next die
+            for (int stage = 0; stage < recyclingDice.length && value > keep; stage++) {
+                value = (value - keep - 1) * recyclingDice[stage] + random.nextInt(recyclingDice[stage]) + 1;
+                keep = recyclingKeep[stage];
+                stageDivideBy = keep / wantedDie;
+            }
+            if (value > keep) {
+                counts[0]++;
+                continue;
+            }
+            // Round up, only positive values can be a side
+            long side = value > 0 ? (value + stageDivideBy - 1) / stageDivideBy : 0;
+            if (side < 1 || side > wantedDie) {
+                counts[wantedDie + 1]++;
+            } else {
+                counts[(int) side]++;
+            }
+        }
+        return counts;
+    }
+
+    // Upper tail of the chi-square distribution, the regularized upper incomplete gamma function Q(k/2, x/2)
+    static double chiSquarePValue(final double chiSquare, final int degreesOfFreedom) {
+        if (degreesOfFreedom < 1) {
+            return 1;
+        }
+        double a = degreesOfFreedom / 2.0;
+        double x = chiSquare / 2;
+        if (x <= 0) {
+            return 1;
+        }
+        if (x < a + 1) {
+            return 1 - lowerGammaSeries(a, x);
+        }
+        return upperGammaContinuedFraction(a, x);
+    }
+
+    // P(a, x) by its series, converges quickly for x < a + 1
+    private static double lowerGammaSeries(final double a, final double x) {
+        double term = 1 / a;
+        double sum = term;
+        for (int n = 1; n < 10_000; n++) {
+            term *= x / (a + n);
+            sum += term;
+            if (Math.abs(term) < Math.abs(sum) * 1e-15) {
+                break;
+            }
+        }
+        return sum * Math.exp(-x + a * Math.log(x) - logGamma(a));
+    }
+
+    // Q(a, x) by its continued fraction (modified Lentz), converges quickly for x >= a + 1
+    private static double upperGammaContinuedFraction(final double a, final double x) {
+        double tiny = 1e-300;
+        double b = x + 1 - a;
+        double c = 1 / tiny;
+        double d = 1 / b;
+        double h = d;
+        for (int n = 1; n < 10_000; n++) {
+            double an = -n * (n - a);
+            b += 2;
+            d = an * d + b;
+            if (Math.abs(d) < tiny) {
+                d = tiny;
+            }
+            c = b + an / c;
+            if (Math.abs(c) < tiny) {
+                c = tiny;
+            }
+            d = 1 / d;
+            double delta = d * c;
+            h *= delta;
+            if (Math.abs(delta - 1) < 1e-15) {
+                break;
+            }
+        }
+        return Math.exp(-x + a * Math.log(x) - logGamma(a)) * h;
+    }
+
+    // Lanczos approximation
+    private static double logGamma(final double x) {
+        double[] coefficients = {76.18009172947146, -86.50532032941677, 24.01409824083091,
+                -1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5};
+        double y = x;
+        double tmp = x + 5.5;
+        tmp -= (x + 0.5) * Math.log(tmp);
+        double series = 1.000000000190015;
+        for (double coefficient : coefficients) {
+            series += coefficient / ++y;
+        }
+        return -tmp + Math.log(2.5066282746310005 * series / x);
+    }
+}
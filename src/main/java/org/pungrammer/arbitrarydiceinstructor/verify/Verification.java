@@ -0,0 +1,33 @@
+package org.pungrammer.arbitrarydiceinstructor.verify;
+
+import lombok.Data;
+
+// Outcome of simulating the instructions of one option
+@Data
+public class Verification {
+    private final int wantedDie;
+    // Every time the instructions were followed, including the discarded ones
+    private final long rolls;
+    private final long discarded;
+    // Kept results which are not a side of the wanted die
+    private final long outsideRange;
+    private final double expectedDiscardProbability;
+    private final double chiSquare;
+    private final int degreesOfFreedom;
+    // Probability that a uniform die shows a chi-square at least this large
+    private final double pValue;
+    private final long nanos;
+    private final int threadCount;
+
+    public double getDiscardRate() {
+        return rolls == 0 ? 0 : ((double) discarded) / rolls;
+    }
+
+    public double getRollsPerSecond() {
+        return nanos == 0 ? 0 : rolls * 1e9 / nanos;
+    }
+
+    public boolean isUniform() {
+        return outsideRange == 0 && pValue >= MonteCarloVerifier.SIGNIFICANCE;
+    }
+}
@@ -0,0 +1,35 @@
+package org.pungrammer.arbitrarydiceinstructor.verify;
+
+import org.junit.jupiter.api.Test;
+import org.pungrammer.arbitrarydiceinstructor.command.CommandParser;
+import org.pungrammer.arbitrarydiceinstructor.config.Config;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Every engine has to find options as good as the odometer for the same random dice on every run
+class DifferentialFuzzerTest {
+
+    private static final int CASES = 100;
+
+    @Test
+    void enginesMatchOdometer() {
+        for (long seed : new long[]{1, 2, 42}) {
+            FuzzReport report = fuzz(seed);
+            assertTrue(report.isPassed(), String.format("%d mismatches with seed %d:%n%s", report.getMismatchCount(),
+                    seed, String.join(System.lineSeparator(), report.getMismatches())));
+        }
+    }
+
+    private static FuzzReport fuzz(final long seed) {
+        Config config = new Config();
+        try (CommandParser commands = new CommandParser(config);
+             DifferentialFuzzer fuzzer = new DifferentialFuzzer(config, commands::execute, seed)) {
+            // setDice and setMaxRollCount print summaries of the index for every case
+            commands.setOutput(new PrintStream(OutputStream.nullOutputStream()));
+            return fuzzer.run(CASES);
+        }
+    }
+}